@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many concurrent transfer sessions should be open against a single FTP server.
+ *
+ * The controller starts with one session and adds another one whenever the aggregate throughput measured over a
+ * sampling window improved noticeably compared to the previous concurrency level. When adding a session does not
+ * pay off, or when throughput drops, the level is lowered and held for a few windows before probing upward again,
+ * since the drop may be transient. When the server refuses a new connection, the level is lowered and kept as the
+ * ceiling for the rest of the run.
+ */
+final class AdaptiveConcurrencyController {
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+  // Minimum relative throughput gain for another session to be considered worthwhile
+  private static final double MIN_GAIN = 0.05;
+  // Relative throughput loss that is treated as server side pushback
+  private static final double MAX_DROP = 0.2;
+  private static final long REFUSAL_COOL_DOWN_MILLIS = 1000L;
+  // Number of windows a lowered level is held before probing upward again
+  private static final int PROBE_COOL_DOWN_WINDOWS = 5;
+
+  private final String host;
+  private final long windowNanos;
+  private int limit;
+  private int ceiling;
+  private double baseline = -1;
+  private double bestThroughput;
+  private boolean probing;
+  private long windowStartBytes = -1;
+  private long windowStartNanos;
+  private int consecutiveRefusals;
+  private long coolDownUntilNanos;
+  private long probeAfterNanos;
+
+  AdaptiveConcurrencyController(String host, int maxConcurrency, long windowMillis) {
+    this.host = host;
+    this.ceiling = Math.max(1, maxConcurrency);
+    this.limit = 1;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+  }
+
+  synchronized int getLimit() {
+    return limit;
+  }
+
+  synchronized int getConsecutiveRefusals() {
+    return consecutiveRefusals;
+  }
+
+  /**
+   * Returns whether a new session may be opened now, i.e. the controller is not cooling down after a refusal.
+   */
+  synchronized boolean canConnect(long nowNanos) {
+    return nowNanos >= coolDownUntilNanos;
+  }
+
+  /**
+   * Feeds a new observation of the total number of bytes transferred so far.
+   *
+   * @param totalBytes bytes transferred since the start of the run
+   * @param activeSessions number of sessions currently transferring
+   * @param backlog whether there are still files waiting for a session
+   * @param nowNanos current value of {@link System#nanoTime()}
+   */
+  synchronized void sample(long totalBytes, int activeSessions, boolean backlog, long nowNanos) {
+    if (activeSessions < limit || !backlog || windowStartBytes < 0) {
+      // Throughput is only comparable across levels while every allowed session is busy
+      resetWindow(totalBytes, nowNanos);
+      return;
+    }
+    long elapsed = nowNanos - windowStartNanos;
+    if (elapsed < windowNanos) {
+      return;
+    }
+
+    double throughput = (totalBytes - windowStartBytes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    bestThroughput = Math.max(bestThroughput, throughput);
+    boolean raised = false;
+    if (throughput < baseline * (1 - MAX_DROP)) {
+      hold(Math.max(1, limit - 1), nowNanos);
+      baseline = throughput;
+      LOG.info("Throughput from {} dropped to {} bytes/s, lowering concurrency to {}.", host, (long) throughput, limit);
+    } else if (nowNanos < probeAfterNanos) {
+      // Keep the lowered level and its baseline, so that recovered throughput counts as a gain afterwards
+    } else if (baseline < 0 || throughput > baseline * (1 + MIN_GAIN)) {
+      baseline = throughput;
+      if (limit < ceiling) {
+        limit++;
+        raised = true;
+        LOG.debug("Throughput from {} at {} bytes/s, raising concurrency to {}.", host, (long) throughput, limit);
+      }
+    } else if (probing) {
+      // The session added last did not pay off, give it back
+      hold(Math.max(1, limit - 1), nowNanos);
+      LOG.debug("No throughput gain from {} at concurrency {}, settling at {}.", host, limit + 1, limit);
+    }
+    probing = raised;
+    resetWindow(totalBytes, nowNanos);
+  }
+
+  synchronized void onConnected() {
+    consecutiveRefusals = 0;
+  }
+
+  /**
+   * Records that the server refused a new session while {@code activeSessions} other sessions were open.
+   */
+  synchronized void onRefused(int activeSessions, long nowNanos) {
+    consecutiveRefusals++;
+    coolDownUntilNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(REFUSAL_COOL_DOWN_MILLIS * consecutiveRefusals);
+    lower(Math.max(1, Math.min(limit, activeSessions)));
+    LOG.info("FTP server {} refused a new connection with {} active sessions, limiting concurrency to {}.",
+             host, activeSessions, limit);
+  }
+
+  synchronized void logSettled() {
+    LOG.info("Concurrency for FTP server {} settled at {} sessions, best observed throughput {} bytes/s.",
+             host, limit, (long) bestThroughput);
+  }
+
+  private void lower(int newLimit) {
+    probing = false;
+    limit = newLimit;
+    ceiling = newLimit;
+  }
+
+  private void hold(int newLimit, long nowNanos) {
+    probing = false;
+    limit = newLimit;
+    probeAfterNanos = nowNanos + windowNanos * PROBE_COOL_DOWN_WINDOWS;
+  }
+
+  private void resetWindow(long totalBytes, long nowNanos) {
+    windowStartBytes = totalBytes;
+    windowStartNanos = nowNanos;
+  }
+}
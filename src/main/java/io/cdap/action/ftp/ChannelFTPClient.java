@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPCmd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import javax.net.SocketFactory;
+
+/**
+ * An {@link FTPClient} whose data connections are backed by {@link SocketChannel socket channels}, so that file
+ * contents can be moved between a data connection and a local file with {@link FileChannel#transferFrom} and
+ * {@link FileChannel#transferTo} instead of being copied through heap buffers and streams. Uploads are sent with
+ * {@code sendfile} and never leave the kernel, while downloads go through a native buffer of the JDK.
+ *
+ * The channel transfers use the file type of the client, which must be binary, since there is no stream to convert
+ * line endings on. Reads and writes of blocking socket channels ignore the socket timeout, so a watchdog closes data
+ * connections on which no bytes moved for the data timeout instead.
+ */
+final class ChannelFTPClient extends FTPClient {
+  private static final Logger LOG = LoggerFactory.getLogger(ChannelFTPClient.class);
+  private static final long CHUNK_SIZE = 1024L * 1024;
+  private static final ScheduledExecutorService WATCHDOGS = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("ftp-data-watchdog").setDaemon(true).build());
+
+  private int dataTimeout;
+
+  @Override
+  public void setDataTimeout(int timeout) {
+    super.setDataTimeout(timeout);
+    dataTimeout = timeout;
+  }
+
+  @Override
+  protected void _connectAction_() throws IOException {
+    super._connectAction_();
+    // The control connection is open, so only data connections are created by the factory from now on
+    setSocketFactory(new ChannelSocketFactory());
+  }
+
+  /**
+   * Downloads a file into the given channel, starting at its current position.
+   *
+   * @param remote path of the file on the server
+   * @param channel channel of the local file to write to
+   * @param progress called with the number of bytes of every chunk written
+   * @return whether the download completed, in which case the reply of the server was already read
+   */
+  boolean retrieveFile(String remote, FileChannel channel, LongConsumer progress) throws IOException {
+    Socket socket = _openDataConnection_(FTPCmd.RETR, remote);
+    if (socket == null) {
+      return false;
+    }
+    Watchdog watchdog = new Watchdog(socket, dataTimeout);
+    try (ReadableByteChannel in = readableChannel(socket)) {
+      long position = channel.position();
+      long count;
+      // Reading a blocking socket channel only comes back empty once the server closed the data connection
+      while ((count = watchdog.transferred(channel.transferFrom(in, position, CHUNK_SIZE))) > 0) {
+        position += count;
+        progress.accept(count);
+      }
+      channel.position(position);
+    } catch (IOException e) {
+      throw watchdog.failure(e);
+    } finally {
+      watchdog.close();
+      socket.close();
+    }
+    return completePendingCommand();
+  }
+
+  /**
+   * Uploads the whole content of the given channel.
+   *
+   * @param remote path of the file on the server
+   * @param channel channel of the local file to read
+   * @param progress called with the number of bytes of every chunk sent
+   * @return whether the upload completed, in which case the reply of the server was already read
+   */
+  boolean storeFile(String remote, FileChannel channel, LongConsumer progress) throws IOException {
+    Socket socket = _openDataConnection_(FTPCmd.STOR, remote);
+    if (socket == null) {
+      return false;
+    }
+    Watchdog watchdog = new Watchdog(socket, dataTimeout);
+    try (WritableByteChannel out = writableChannel(socket)) {
+      long size = channel.size();
+      long position = 0;
+      while (position < size) {
+        long count = watchdog.transferred(channel.transferTo(position, Math.min(CHUNK_SIZE, size - position), out));
+        position += count;
+        progress.accept(count);
+      }
+    } catch (IOException e) {
+      throw watchdog.failure(e);
+    } finally {
+      watchdog.close();
+      socket.close();
+    }
+    return completePendingCommand();
+  }
+
+  private static ReadableByteChannel readableChannel(Socket socket) throws IOException {
+    // Data connections accepted in active mode are not created by the socket factory and have no channel
+    SocketChannel channel = socket.getChannel();
+    return (channel != null) ? channel : Channels.newChannel(socket.getInputStream());
+  }
+
+  private static WritableByteChannel writableChannel(Socket socket) throws IOException {
+    SocketChannel channel = socket.getChannel();
+    return (channel != null) ? channel : Channels.newChannel(socket.getOutputStream());
+  }
+
+  /**
+   * Closes a data connection once no bytes moved on it between two checks, which are the data timeout apart, so that
+   * a stalled transfer fails within twice the data timeout.
+   */
+  private static final class Watchdog implements Closeable {
+    private final Socket socket;
+    private final ScheduledFuture<?> future;
+    // Only written by the transferring thread
+    private volatile long transferred;
+    private volatile boolean expired;
+    private long checked = -1L;
+
+    private Watchdog(Socket socket, int timeoutMillis) {
+      this.socket = socket;
+      this.future = (timeoutMillis <= 0) ? null
+        : WATCHDOGS.scheduleWithFixedDelay(this::check, timeoutMillis, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the failure of a transfer, which is a {@link SocketTimeoutException} if the watchdog closed the data
+     * connection.
+     */
+    private IOException failure(IOException e) {
+      if (!expired) {
+        return e;
+      }
+      SocketTimeoutException timeout = new SocketTimeoutException(
+        String.format("Data connection to %s stalled and was closed.", socket.getRemoteSocketAddress()));
+      timeout.initCause(e);
+      return timeout;
+    }
+
+    /**
+     * Records the bytes moved by a transfer and returns their number.
+     */
+    private long transferred(long count) {
+      transferred += count;
+      return count;
+    }
+
+    private void check() {
+      long current = transferred;
+      if (current == checked) {
+        expired = true;
+        try {
+          socket.close();
+        } catch (IOException e) {
+          LOG.debug("Failed to close the stalled data connection to {}", socket.getRemoteSocketAddress(), e);
+        }
+      }
+      checked = current;
+    }
+
+    @Override
+    public void close() {
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Creates sockets that are backed by a {@link SocketChannel}.
+   */
+  private static final class ChannelSocketFactory extends SocketFactory {
+
+    @Override
+    public Socket createSocket() throws IOException {
+      return SocketChannel.open().socket();
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      return createSocket(new InetSocketAddress(host, port), null);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+      return createSocket(new InetSocketAddress(host, port), new InetSocketAddress(localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+      return createSocket(new InetSocketAddress(host, port), null);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+                               int localPort) throws IOException {
+      return createSocket(new InetSocketAddress(address, port), new InetSocketAddress(localAddress, localPort));
+    }
+
+    private Socket createSocket(InetSocketAddress remote, InetSocketAddress local) throws IOException {
+      Socket socket = createSocket();
+      try {
+        if (local != null) {
+          socket.bind(local);
+        }
+        socket.connect(remote);
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+      return socket;
+    }
+  }
+}
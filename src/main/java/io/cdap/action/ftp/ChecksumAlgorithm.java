@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nullable;
+
+/**
+ * Checksum algorithms that can be verified against FTP servers, together with the site specific command and the
+ * sidecar file extension used for each of them.
+ */
+public enum ChecksumAlgorithm {
+  MD5("MD5", "XMD5", ".md5"),
+  SHA1("SHA-1", "XSHA1", ".sha1"),
+  SHA256("SHA-256", "XSHA256", ".sha256"),
+  CRC32("CRC32", "XCRC", ".crc32");
+
+  private final String name;
+  private final String command;
+  private final String extension;
+
+  ChecksumAlgorithm(String name, String command, String extension) {
+    this.name = name;
+    this.command = command;
+    this.extension = extension;
+  }
+
+  /**
+   * Returns the algorithm name, as used by the {@code HASH} command.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the non standard command computing this checksum, such as {@code XMD5}.
+   */
+  public String getCommand() {
+    return command;
+  }
+
+  /**
+   * Returns the extension of the sidecar file holding the checksum of a file.
+   */
+  public String getExtension() {
+    return extension;
+  }
+
+  MessageDigest newDigest() {
+    if (this == CRC32) {
+      return new CRC32Digest();
+    }
+    try {
+      return MessageDigest.getInstance(name);
+    } catch (NoSuchAlgorithmException e) {
+      // All of them are required to be supported by every Java platform
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the normalized lower case hex representation of a checksum reported by a server or a sidecar file,
+   * or {@code null} if the given token is not a valid checksum for this algorithm.
+   */
+  @Nullable
+  String normalize(String token) {
+    if (!token.matches("[0-9a-fA-F]+")) {
+      return null;
+    }
+    int length = newDigest().getDigestLength() * 2;
+    if (this == CRC32 && token.length() < length) {
+      // Servers commonly omit leading zeros of CRC values
+      token = String.format("%" + length + "s", token).replace(' ', '0');
+    }
+    return token.length() == length ? token.toLowerCase() : null;
+  }
+
+  @Nullable
+  public static ChecksumAlgorithm fromName(String name) {
+    for (ChecksumAlgorithm algorithm : values()) {
+      if (algorithm.name.equalsIgnoreCase(name) || algorithm.name().equalsIgnoreCase(name)) {
+        return algorithm;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Exposes {@link java.util.zip.CRC32} as a {@link MessageDigest}, so every algorithm can be streamed the same way.
+   */
+  private static final class CRC32Digest extends MessageDigest {
+    private final java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+
+    CRC32Digest() {
+      super("CRC32");
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+      return 4;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+      crc.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+      crc.update(input, offset, len);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+      long value = crc.getValue();
+      crc.reset();
+      return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    @Override
+    protected void engineReset() {
+      crc.reset();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.collect.Iterables;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Digests of previously verified files, persisted between runs as a tab separated file with the file path, size,
+ * modification time, algorithm and digest on every line.
+ */
+final class ChecksumManifest {
+  private static final Logger LOG = LoggerFactory.getLogger(ChecksumManifest.class);
+
+  private final FileSystem fileSystem;
+  private final Path path;
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  private ChecksumManifest(FileSystem fileSystem, Path path) {
+    this.fileSystem = fileSystem;
+    this.path = path;
+  }
+
+  static ChecksumManifest load(FileSystem fileSystem, Path path) throws IOException {
+    ChecksumManifest manifest = new ChecksumManifest(fileSystem, path);
+    for (List<String> fields : TabSeparatedFile.read(fileSystem, path)) {
+      if (fields.size() != 5) {
+        LOG.warn("Ignoring malformed line in checksum manifest {}: {}", path, fields);
+        continue;
+      }
+      manifest.entries.put(fields.get(0), new Entry(Long.parseLong(fields.get(1)), Long.parseLong(fields.get(2)),
+                                                    fields.get(3), fields.get(4)));
+    }
+    LOG.debug("Loaded {} digests from checksum manifest {}.", manifest.entries.size(), path);
+    return manifest;
+  }
+
+  /**
+   * Returns the digest recorded for the given file, if the file has not changed since it was recorded.
+   */
+  @Nullable
+  synchronized String get(String file, long size, long modified, ChecksumAlgorithm algorithm) {
+    Entry entry = entries.get(file);
+    if (entry == null || entry.size != size || entry.modified != modified
+      || !entry.algorithm.equals(algorithm.getName())) {
+      return null;
+    }
+    return entry.digest;
+  }
+
+  synchronized void put(String file, long size, long modified, ChecksumAlgorithm algorithm, String digest) {
+    entries.put(file, new Entry(size, modified, algorithm.getName(), digest));
+  }
+
+  /**
+   * Adds the digests recorded in another manifest file, replacing the digests recorded for the same files.
+   */
+  synchronized void merge(Path other) throws IOException {
+    entries.putAll(load(fileSystem, other).entries);
+  }
+
+  /**
+   * Writes the manifest, replacing the previous version.
+   */
+  synchronized void save() throws IOException {
+    save(path);
+  }
+
+  /**
+   * Writes the manifest to the given path, replacing the file at that path.
+   */
+  synchronized void save(Path path) throws IOException {
+    TabSeparatedFile.write(fileSystem, path, Iterables.transform(entries.entrySet(), entry -> Arrays.asList(
+      entry.getKey(), entry.getValue().size, entry.getValue().modified, entry.getValue().algorithm,
+      entry.getValue().digest)));
+  }
+
+  private static final class Entry {
+    private final long size;
+    private final long modified;
+    private final String algorithm;
+    private final String digest;
+
+    private Entry(long size, long modified, String algorithm, String digest) {
+      this.size = size;
+      this.modified = modified;
+      this.algorithm = algorithm;
+      this.digest = digest;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the checksum computed while transferring a file does not match the expected checksum.
+ */
+public class ChecksumMismatchException extends IOException {
+
+  public ChecksumMismatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Verifies checksums computed while files stream through a transfer.
+ *
+ * The expected checksum is taken from the {@link ChecksumManifest} if the file did not change since it was last
+ * verified. Otherwise it is requested from the FTP server with the {@code HASH} command or the non standard
+ * {@code XMD5}, {@code XSHA1}, {@code XSHA256} and {@code XCRC} commands, or read from a sidecar file next to the
+ * source, depending on the verification mode. Mismatches and files that could not be verified are kept for the
+ * report of the run.
+ *
+ * Checksums are computed over the bytes of the source files, which clients transfer with the binary file type, so
+ * that they match the checksums of the server and of sidecar files even for text files with CRLF line endings.
+ */
+final class ChecksumVerifier {
+  private static final Logger LOG = LoggerFactory.getLogger(ChecksumVerifier.class);
+  private static final Splitter TOKENIZER = Splitter.on(CharMatcher.WHITESPACE).omitEmptyStrings();
+
+  /**
+   * Where expected checksums are taken from.
+   */
+  enum Mode {
+    NONE, AUTO, SERVER, SIDECAR;
+
+    @Nullable
+    static Mode fromName(String name) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(name)) {
+          return mode;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Reads the content of the sidecar file with the given extension, or returns {@code null} if there is none.
+   */
+  interface SidecarReader {
+    @Nullable
+    String read(String extension) throws IOException;
+  }
+
+  private final Mode mode;
+  private final ChecksumAlgorithm algorithm;
+  private final ChecksumManifest manifest;
+  private final AtomicInteger verified = new AtomicInteger();
+  private final AtomicInteger reused = new AtomicInteger();
+  private final Set<String> unverified = new TreeSet<>();
+  private final Map<String, String> mismatches = new TreeMap<>();
+  private volatile boolean hashSupported = true;
+  private volatile boolean commandSupported = true;
+
+  ChecksumVerifier(Mode mode, ChecksumAlgorithm algorithm, @Nullable ChecksumManifest manifest) {
+    this.mode = mode;
+    this.algorithm = algorithm;
+    this.manifest = manifest;
+  }
+
+  /**
+   * Creates the verifier configured for an action, or returns {@code null} if verification is disabled.
+   *
+   * @param defaultManifest manifest used when no manifest is configured, or {@code null} for none
+   */
+  @Nullable
+  static ChecksumVerifier create(FTPActionConfig config, FileSystem fileSystem,
+                                 @Nullable Path defaultManifest) throws IOException {
+    Mode mode = Mode.fromName(config.getChecksumVerification());
+    if (mode == null || mode == Mode.NONE) {
+      return null;
+    }
+    Path manifestPath = (config.getChecksumManifest() == null) ? defaultManifest
+      : fileSystem.makeQualified(new Path(config.getChecksumManifest()));
+    ChecksumManifest manifest = (manifestPath == null) ? null : ChecksumManifest.load(fileSystem, manifestPath);
+    return new ChecksumVerifier(mode, ChecksumAlgorithm.fromName(config.getChecksumAlgorithm()), manifest);
+  }
+
+  MessageDigest newDigest() {
+    return algorithm.newDigest();
+  }
+
+  /**
+   * Verifies the digest computed while transferring a file.
+   *
+   * @param file path of the source file, as recorded in the manifest and the report
+   * @param size size of the source file
+   * @param modified modification time of the source file
+   * @param digest digest computed over the transferred bytes
+   * @param ftp connection to query the server checksum on
+   * @param remotePath path of the file on the FTP server
+   * @param sidecar reads sidecar files of the source file
+   * @throws ChecksumMismatchException if the checksums don't match
+   */
+  void verify(String file, long size, long modified, MessageDigest digest, FTPClient ftp, String remotePath,
+              SidecarReader sidecar) throws IOException {
+    String actual = BaseEncoding.base16().lowerCase().encode(digest.digest());
+    String expected = (manifest == null) ? null : manifest.get(file, size, modified, algorithm);
+    boolean fromManifest = expected != null;
+    if (expected == null && (mode == Mode.AUTO || mode == Mode.SERVER)) {
+      expected = queryServer(ftp, remotePath);
+    }
+    if (expected == null && (mode == Mode.AUTO || mode == Mode.SIDECAR)) {
+      String content = sidecar.read(algorithm.getExtension());
+      expected = (content == null) ? null : parseSidecar(content);
+    }
+
+    if (expected == null) {
+      LOG.warn("No {} checksum available to verify {}.", algorithm.getName(), file);
+      synchronized (this) {
+        unverified.add(file);
+      }
+      return;
+    }
+    if (!expected.equals(actual)) {
+      synchronized (this) {
+        mismatches.put(file, String.format("expected %s, actual %s", expected, actual));
+      }
+      throw new ChecksumMismatchException(String.format("%s checksum mismatch for %s: expected %s, actual %s.",
+                                                        algorithm.getName(), file, expected, actual));
+    }
+
+    synchronized (this) {
+      unverified.remove(file);
+      mismatches.remove(file);
+    }
+    (fromManifest ? reused : verified).incrementAndGet();
+    if (manifest != null) {
+      manifest.put(file, size, modified, algorithm, actual);
+    }
+  }
+
+  /**
+   * Returns the checksum computed by the server for the given file, or {@code null} if the server doesn't support
+   * any of the checksum commands for the algorithm.
+   */
+  @Nullable
+  String queryServer(FTPClient ftp, String path) throws IOException {
+    if (hashSupported) {
+      int reply = ftp.sendCommand("OPTS", "HASH " + algorithm.getName());
+      if (FTPReply.isPositiveCompletion(reply)) {
+        reply = ftp.sendCommand("HASH", path);
+      }
+      if (FTPReply.isPositiveCompletion(reply)) {
+        // 213 <algorithm> <range> <hash> <file>
+        List<String> tokens = TOKENIZER.splitToList(ftp.getReplyString().trim());
+        String hash = (tokens.size() > 3) ? algorithm.normalize(tokens.get(3)) : null;
+        if (hash != null) {
+          return hash;
+        }
+      } else if (isUnsupported(reply)) {
+        hashSupported = false;
+      }
+    }
+    if (commandSupported) {
+      int reply = ftp.sendCommand(algorithm.getCommand(), path);
+      if (FTPReply.isPositiveCompletion(reply)) {
+        List<String> tokens = TOKENIZER.splitToList(ftp.getReplyString().trim());
+        for (String token : tokens.subList(1, tokens.size())) {
+          String hash = algorithm.normalize(token);
+          if (hash != null) {
+            return hash;
+          }
+        }
+      } else if (isUnsupported(reply)) {
+        commandSupported = false;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads a sidecar file from the given stream, which is closed afterwards.
+   */
+  static String readSidecar(InputStream is) throws IOException {
+    try (InputStream in = is) {
+      return new String(ByteStreams.toByteArray(ByteStreams.limit(in, 4096)), StandardCharsets.UTF_8);
+    }
+  }
+
+  synchronized Map<String, String> getMismatches() {
+    return Collections.unmodifiableMap(new TreeMap<>(mismatches));
+  }
+
+  synchronized void log() {
+    LOG.info("Verified {} checksums, {} unchanged files verified against recorded checksums, " +
+               "{} files could not be verified, {} mismatches.",
+             verified.get(), reused.get(), unverified.size(), mismatches.size());
+    if (!unverified.isEmpty()) {
+      LOG.warn("Files without {} checksum: {}", algorithm.getName(), unverified);
+    }
+    for (Map.Entry<String, String> entry : mismatches.entrySet()) {
+      LOG.error("Checksum mismatch for file {}: {}", entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Saves the recorded checksums, if there is a manifest.
+   */
+  void saveManifest() throws IOException {
+    if (manifest != null) {
+      manifest.save();
+    }
+  }
+
+  /**
+   * Saves the recorded checksums to the given path instead of the manifest, if there is a manifest.
+   */
+  void saveManifest(Path path) throws IOException {
+    if (manifest != null) {
+      manifest.save(path);
+    }
+  }
+
+  /**
+   * Adds the checksums recorded in the given manifest file, if there is a manifest.
+   */
+  void mergeManifest(Path path) throws IOException {
+    if (manifest != null) {
+      manifest.merge(path);
+    }
+  }
+
+  @Nullable
+  private String parseSidecar(String content) {
+    // md5sum style, "<checksum>  <file name>"
+    List<String> tokens = TOKENIZER.splitToList(content.trim());
+    return tokens.isEmpty() ? null : algorithm.normalize(tokens.get(0));
+  }
+
+  private static boolean isUnsupported(int reply) {
+    return reply == FTPReply.UNRECOGNIZED_COMMAND || reply == FTPReply.COMMAND_NOT_IMPLEMENTED
+      || reply == FTPReply.COMMAND_NOT_IMPLEMENTED_FOR_PARAMETER;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link InputFormat} handing the file lists computed by the action to the tasks of the distributed copy. Each
+ * split is read as a single record, the split itself, so that the mapper can copy its files concurrently.
+ *
+ * The file lists are written to a copy list file rather than the job configuration, which is shipped to every task
+ * and would grow with the number of files.
+ */
+public class CopyListInputFormat extends InputFormat<NullWritable, CopyListSplit> {
+  static final String COPY_LIST = "ftp.copy.list";
+
+  /**
+   * Writes the splits to the given copy list file, and sets it as the file the splits are read from.
+   */
+  static void setSplits(Configuration conf, Path copyList, List<CopyListSplit> splits) throws IOException {
+    try (FSDataOutputStream out = copyList.getFileSystem(conf).create(copyList, true)) {
+      out.writeInt(splits.size());
+      for (CopyListSplit split : splits) {
+        split.write(out);
+      }
+    }
+    conf.set(COPY_LIST, copyList.toString());
+  }
+
+  @Override
+  public List<InputSplit> getSplits(JobContext context) throws IOException {
+    Path copyList = new Path(context.getConfiguration().get(COPY_LIST));
+    try (FSDataInputStream in = copyList.getFileSystem(context.getConfiguration()).open(copyList)) {
+      int size = in.readInt();
+      List<InputSplit> splits = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        CopyListSplit split = new CopyListSplit();
+        split.readFields(in);
+        splits.add(split);
+      }
+      return splits;
+    }
+  }
+
+  @Override
+  public RecordReader<NullWritable, CopyListSplit> createRecordReader(InputSplit split, TaskAttemptContext context) {
+    return new RecordReader<NullWritable, CopyListSplit>() {
+      private CopyListSplit value;
+      private boolean read;
+
+      @Override
+      public void initialize(InputSplit split, TaskAttemptContext context) {
+        value = (CopyListSplit) split;
+      }
+
+      @Override
+      public boolean nextKeyValue() {
+        if (read) {
+          return false;
+        }
+        read = true;
+        return true;
+      }
+
+      @Override
+      public NullWritable getCurrentKey() {
+        return NullWritable.get();
+      }
+
+      @Override
+      public CopyListSplit getCurrentValue() {
+        return value;
+      }
+
+      @Override
+      public float getProgress() {
+        return read ? 1.0f : 0.0f;
+      }
+
+      @Override
+      public void close() {
+        // Nothing to close
+      }
+    };
+  }
+}
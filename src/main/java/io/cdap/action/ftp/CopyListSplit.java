@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * The files of the source directory copied by one task of the distributed copy.
+ */
+public class CopyListSplit extends InputSplit implements Writable {
+  private List<FTPFile> files;
+
+  public CopyListSplit() {
+    // For deserialization
+  }
+
+  public CopyListSplit(List<FTPFile> files) {
+    this.files = files;
+  }
+
+  public List<FTPFile> getFiles() {
+    return files;
+  }
+
+  @Override
+  public long getLength() {
+    long length = 0;
+    for (FTPFile file : files) {
+      length += file.getSize();
+    }
+    return length;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return new String[0];
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(files.size());
+    for (FTPFile file : files) {
+      WritableUtils.writeString(out, file.getName());
+      out.writeLong(file.getSize());
+      out.writeLong((file.getTimestamp() == null) ? 0L : file.getTimestamp().getTimeInMillis());
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    int size = in.readInt();
+    files = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      FTPFile file = new FTPFile();
+      file.setType(FTPFile.FILE_TYPE);
+      file.setName(WritableUtils.readString(in));
+      file.setSize(in.readLong());
+      long modified = in.readLong();
+      if (modified != 0L) {
+        Calendar timestamp = Calendar.getInstance();
+        timestamp.setTimeInMillis(modified);
+        file.setTimestamp(timestamp);
+      }
+      files.add(file);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return files.size() + " files, " + getLength() + " bytes";
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Compresses files with a Hadoop {@link CompressionCodec} while they are written to the destination.
+ *
+ * Source files that are already compressed with another codec known to Hadoop, such as {@code .gz} files, are
+ * decompressed in the same pass and written with the destination codec instead, so they can be re-encoded into a
+ * splittable format like bzip2. Files already compressed with the destination codec are copied as is.
+ */
+final class DestinationCompression {
+  static final String NONE = "none";
+
+  private final CompressionCodecFactory factory;
+  private final CompressionCodec codec;
+
+  private DestinationCompression(CompressionCodecFactory factory, CompressionCodec codec) {
+    this.factory = factory;
+    this.codec = codec;
+  }
+
+  /**
+   * Returns the compression for the given codec name, or {@code null} if files should be written as is.
+   *
+   * @throws IllegalArgumentException if the codec is unknown
+   */
+  @Nullable
+  static DestinationCompression of(Configuration conf, @Nullable String codecName) {
+    if (codecName == null || codecName.isEmpty() || NONE.equalsIgnoreCase(codecName)) {
+      return null;
+    }
+    CompressionCodecFactory factory = new CompressionCodecFactory(conf);
+    CompressionCodec codec = factory.getCodecByName(codecName);
+    if (codec == null) {
+      throw new IllegalArgumentException(String.format("Unknown compression codec '%s'.", codecName));
+    }
+    return new DestinationCompression(factory, codec);
+  }
+
+  CompressionCodec getCodec() {
+    return codec;
+  }
+
+  /**
+   * Returns the name under which a source file is written, with the extension adjusted to the destination codec.
+   */
+  String getDestinationName(String sourceName) {
+    CompressionCodec sourceCodec = getSourceCodec(sourceName);
+    if (sourceCodec == null) {
+      return sourceName + codec.getDefaultExtension();
+    }
+    if (isDestinationCodec(sourceCodec)) {
+      return sourceName;
+    }
+    return CompressionCodecFactory.removeSuffix(sourceName, sourceCodec.getDefaultExtension())
+      + codec.getDefaultExtension();
+  }
+
+  /**
+   * Returns the uncompressed content of the source file, unless it is already compressed with the destination codec.
+   */
+  InputStream decode(String sourceName, InputStream inputStream) throws IOException {
+    CompressionCodec sourceCodec = getSourceCodec(sourceName);
+    if (sourceCodec == null || isDestinationCodec(sourceCodec)) {
+      return inputStream;
+    }
+    return sourceCodec.createInputStream(inputStream);
+  }
+
+  /**
+   * Returns the stream compressing into the given destination stream, unless the source file is already compressed
+   * with the destination codec.
+   */
+  OutputStream encode(String sourceName, OutputStream outputStream) throws IOException {
+    CompressionCodec sourceCodec = getSourceCodec(sourceName);
+    if (sourceCodec != null && isDestinationCodec(sourceCodec)) {
+      return outputStream;
+    }
+    return codec.createOutputStream(outputStream);
+  }
+
+  @Nullable
+  private CompressionCodec getSourceCodec(String sourceName) {
+    return factory.getCodec(new Path(sourceName));
+  }
+
+  private boolean isDestinationCodec(CompressionCodec sourceCodec) {
+    return sourceCodec.getClass().equals(codec.getClass());
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the files of the source directory and all its subdirectories, skipping the parts of the tree that did not
+ * change since the previous run according to a {@link ListingSnapshot}.
+ *
+ * The modification time of a directory only changes when entries are added to it, removed or renamed, so an
+ * unchanged modification time says nothing about changes deeper in its subtree. A subtree is therefore only pruned
+ * when its modification time is unchanged and the newest entry found in it by the previous listing is older than
+ * the quiet period, meaning that the subtree had settled. Directories that are listed but have the same files as before
+ * are descended into, but their files are not copied again. A snapshot taken with another file name regex is not
+ * used, since files skipped by the previous regex may match the new one.
+ */
+final class DirectoryWalker {
+  private static final Logger LOG = LoggerFactory.getLogger(DirectoryWalker.class);
+
+  private final FTPClient ftp;
+  private final String root;
+  private final String fileNameRegex;
+  private final ListingSnapshot previous;
+  private final long settledBefore;
+  private final ListingSnapshot snapshot;
+  private final List<FTPFile> files = new ArrayList<>();
+  private int listed;
+  private int pruned;
+
+  /**
+   * @param previous snapshot saved by the previous run
+   * @param settledBefore subtrees without entries modified after this time may be pruned
+   */
+  DirectoryWalker(FTPClient ftp, String root, String fileNameRegex, ListingSnapshot previous, long settledBefore) {
+    this.ftp = ftp;
+    this.root = root;
+    this.fileNameRegex = fileNameRegex;
+    this.settledBefore = settledBefore;
+    this.snapshot = new ListingSnapshot(fileNameRegex);
+    if (fileNameRegex.equals(previous.getFileNameRegex()) || previous.size() == 0) {
+      this.previous = previous;
+    } else {
+      LOG.info("The file name regex changed since the listing snapshot of {} was taken, listing the whole tree.", root);
+      this.previous = new ListingSnapshot(fileNameRegex);
+    }
+  }
+
+  /**
+   * Returns the new or changed files matching the file name regex, named by their path relative to the root.
+   */
+  List<FTPFile> walk() throws IOException {
+    walk(ListingSnapshot.ROOT, 0L);
+    LOG.info("Listed {} directories and pruned {} unchanged subtrees under {}, found {} files to copy.",
+             listed, pruned, root, files.size());
+    return files;
+  }
+
+  /**
+   * Returns the snapshot of the tree as listed by this walker, including the pruned subtrees.
+   */
+  ListingSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  int getListed() {
+    return listed;
+  }
+
+  /**
+   * Lists a directory and its subdirectories and returns the newest modification time found in its subtree.
+   */
+  private long walk(String directory, long modified) throws IOException {
+    String path = ListingSnapshot.ROOT.equals(directory) ? root : root + "/" + directory;
+    FTPFile[] entries = ftp.listFiles(path);
+    if (!FTPReply.isPositiveCompletion(ftp.getReplyCode())) {
+      throw new IOException(String.format("Failed to list directory %s with reply %s.", path, ftp.getReplyString()));
+    }
+    listed++;
+
+    List<FTPFile> children = new ArrayList<>();
+    for (FTPFile entry : entries) {
+      // Links are not followed, since they could form cycles
+      if (entry != null && !entry.isSymbolicLink() && !".".equals(entry.getName()) && !"..".equals(entry.getName())) {
+        children.add(entry);
+      }
+    }
+    children.sort(Comparator.comparing(FTPFile::getName));
+    // Subdirectories have fingerprints of their own, so only the files of the directory are hashed
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    int fileCount = 0;
+    for (FTPFile child : children) {
+      if (child.isFile()) {
+        hasher.putString(child.getName(), StandardCharsets.UTF_8).putLong(child.getSize()).putLong(getModified(child));
+        fileCount++;
+      }
+    }
+    String hash = hasher.hash().toString();
+    ListingSnapshot.Fingerprint before = previous.get(directory);
+    boolean sameFiles = before != null && before.hasSameFiles(fileCount, hash);
+
+    long newest = modified;
+    for (FTPFile child : children) {
+      String childPath = ListingSnapshot.ROOT.equals(directory) ? child.getName() : directory + "/" + child.getName();
+      long childModified = getModified(child);
+      if (child.isDirectory()) {
+        ListingSnapshot.Fingerprint childBefore = previous.get(childPath);
+        if (childBefore != null && childBefore.getModified() == childModified
+          && childBefore.getNewest() < settledBefore) {
+          snapshot.copySubtree(previous, childPath);
+          pruned++;
+          newest = Math.max(newest, childBefore.getNewest());
+        } else {
+          newest = Math.max(newest, walk(childPath, childModified));
+        }
+      } else if (child.isFile()) {
+        newest = Math.max(newest, childModified);
+        if (!sameFiles && child.getName().matches(fileNameRegex)) {
+          files.add(relativeFile(child, childPath));
+        }
+      }
+    }
+    snapshot.put(directory, new ListingSnapshot.Fingerprint(modified, fileCount, hash, newest));
+    return newest;
+  }
+
+  private static long getModified(FTPFile file) {
+    return (file.getTimestamp() == null) ? 0L : file.getTimestamp().getTimeInMillis();
+  }
+
+  private static FTPFile relativeFile(FTPFile file, String relativePath) {
+    FTPFile relative = new FTPFile();
+    relative.setType(file.getType());
+    relative.setName(relativePath);
+    relative.setSize(file.getSize());
+    relative.setTimestamp(file.getTimestamp());
+    return relative;
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskReport;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.security.Credentials;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Copies files with a MapReduce job, so that the transfers are spread over the nodes of the cluster instead of being
+ * limited by the network and CPU of the node running the action.
+ *
+ * The files listed by the action are partitioned into one split per task, balanced by size. Each task copies its
+ * files over its own connections with a {@link FileCopyMapper}, writing directly to the destination file system, and
+ * reports the outcome of every file to a work directory that is removed once the job completed. The progress of the
+ * job and of every task is logged while the action waits for the job.
+ *
+ * The job configuration can be read by anyone who can see the job, so it only holds the properties the tasks need,
+ * and the password is passed as a secret key of the job credentials. The file lists of the tasks are written to a
+ * copy list file in the work directory.
+ */
+final class DistributedCopy {
+  private static final Logger LOG = LoggerFactory.getLogger(DistributedCopy.class);
+  private static final long POLL_MILLIS = 2000L;
+
+  static final String PROPERTY_PREFIX = "ftp.copy.property.";
+  static final String DESTINATION = "ftp.copy.destination";
+  static final String WORK_DIRECTORY = "ftp.copy.work.directory";
+  static final String TASK_CONNECTIONS = "ftp.copy.task.connections";
+  static final String LOGICAL_START_TIME = "ftp.copy.logical.start.time";
+  static final String COPIED = "copied";
+  static final String CHECKSUMS = "checksums";
+  private static final String OUTCOMES = "outcomes";
+  private static final String COPY_LIST = "copy-list";
+  private static final Text PASSWORD = new Text("ftp.copy.password");
+
+  /**
+   * Counters reporting the progress of the copy tasks.
+   */
+  enum CopyCounter {
+    FILES_COPIED, BYTES_COPIED, FILES_FAILED
+  }
+
+  private final FTPCopyActionConfig config;
+  private final Configuration conf;
+  private final FileSystem fileSystem;
+  private final Path destination;
+  private final Path workDirectory;
+  private final long logicalStartTime;
+
+  DistributedCopy(FTPCopyActionConfig config, Configuration conf, FileSystem fileSystem, Path destination,
+                  Path workDirectory, long logicalStartTime) {
+    this.config = config;
+    this.conf = conf;
+    this.fileSystem = fileSystem;
+    this.destination = destination;
+    this.workDirectory = workDirectory;
+    this.logicalStartTime = logicalStartTime;
+  }
+
+  /**
+   * Copies the given files and returns the names of the files that were copied.
+   *
+   * @throws RuntimeException if the job failed, or more files failed than the failure threshold allows
+   */
+  List<String> run(List<FTPFile> files) throws Exception {
+    List<CopyListSplit> splits = partition(files, Math.min(config.getMaxTasks(), files.size()));
+    if (splits.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Job job = Job.getInstance(conf, String.format("FTP copy from %s:%s", config.getHost(), config.getSrcDirectory()));
+    job.setJarByClass(FileCopyMapper.class);
+    job.setInputFormatClass(CopyListInputFormat.class);
+    job.setMapperClass(FileCopyMapper.class);
+    job.setNumReduceTasks(0);
+    // Two attempts of the same task would write the same destination files
+    job.setSpeculativeExecution(false);
+    job.setOutputKeyClass(Text.class);
+    job.setOutputValueClass(Text.class);
+    // Failure messages may hold the multi-line replies of the server, which a text file would split across lines
+    job.setOutputFormatClass(SequenceFileOutputFormat.class);
+    FileOutputFormat.setOutputPath(job, new Path(workDirectory, OUTCOMES));
+
+    setConfig(job, config);
+    Configuration jobConf = job.getConfiguration();
+    jobConf.set(DESTINATION, destination.toString());
+    jobConf.set(WORK_DIRECTORY, workDirectory.toString());
+    jobConf.setInt(TASK_CONNECTIONS, Math.max(1, config.getMaxConnections() / splits.size()));
+    jobConf.setLong(LOGICAL_START_TIME, logicalStartTime);
+
+    boolean submitted = false;
+    try {
+      CopyListInputFormat.setSplits(jobConf, new Path(workDirectory, COPY_LIST), splits);
+      job.submit();
+      submitted = true;
+      LOG.info("Submitted job {} copying {} files in {} tasks.", job.getJobID(), files.size(), splits.size());
+      Map<String, String> taskStates = new HashMap<>();
+      while (!job.isComplete()) {
+        TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+        logProgress(job, taskStates);
+      }
+      logProgress(job, taskStates);
+      if (!job.isSuccessful()) {
+        throw new RuntimeException(String.format("Distributed copy job %s failed: %s",
+                                                 job.getJobID(), job.getStatus().getFailureInfo()));
+      }
+      return collectOutcomes();
+    } finally {
+      if (submitted && !job.isComplete()) {
+        job.killJob();
+      }
+      fileSystem.delete(workDirectory, true);
+    }
+  }
+
+  /**
+   * Partitions the files into at most the given number of splits, assigning the largest files first to the split
+   * with the fewest bytes, so that all tasks copy about the same number of bytes.
+   */
+  static List<CopyListSplit> partition(List<FTPFile> files, int maxSplits) {
+    List<FTPFile> sorted = new ArrayList<>(files);
+    sorted.sort(Comparator.comparingLong(FTPFile::getSize).reversed());
+    PriorityQueue<Bin> bins = new PriorityQueue<>(Math.max(1, maxSplits),
+                                                  Comparator.comparingLong((Bin bin) -> bin.size));
+    for (FTPFile file : sorted) {
+      Bin bin = (bins.size() < maxSplits) ? new Bin() : bins.poll();
+      bin.files.add(file);
+      bin.size += file.getSize();
+      bins.add(bin);
+    }
+    List<CopyListSplit> splits = new ArrayList<>();
+    for (Bin bin : bins) {
+      splits.add(new CopyListSplit(bin.files));
+    }
+    return splits;
+  }
+
+  /**
+   * Sets the properties of the config that the tasks need in the job configuration, and the password as a secret key
+   * of the job credentials. The password is added to the credentials of the current user as well, since the local
+   * job runner may start the tasks before it sets the job credentials.
+   */
+  static void setConfig(Job job, FTPCopyActionConfig config) throws IOException {
+    Configuration conf = job.getConfiguration();
+    setProperty(conf, FTPActionConfig.HOST, config.getHost());
+    setProperty(conf, FTPActionConfig.PORT, config.getPort());
+    setProperty(conf, FTPActionConfig.USER_NAME, config.getUserName());
+    setProperty(conf, FTPActionConfig.DEST_DIRECTORY, config.getDestDirectory());
+    setProperty(conf, FTPActionConfig.FILE_NAME_REGEX, config.getFileNameRegex());
+    setProperty(conf, FTPActionConfig.MAX_RETRIES, config.getMaxRetries());
+    setProperty(conf, FTPActionConfig.CHECKSUM_VERIFICATION, config.getChecksumVerification());
+    setProperty(conf, FTPActionConfig.CHECKSUM_ALGORITHM, config.getChecksumAlgorithm());
+    setProperty(conf, FTPActionConfig.CHECKSUM_MANIFEST, config.getChecksumManifest());
+    setProperty(conf, FTPActionConfig.TRANSFER_ENGINE, config.getTransferEngine());
+    setProperty(conf, FTPCopyActionConfig.SOURCE_DIRECTORY, config.getSrcDirectory());
+    setProperty(conf, FTPCopyActionConfig.EXTRACT_ZIP_FILES, config.getExtractZipFiles());
+    setProperty(conf, FTPCopyActionConfig.SMALL_FILE_THRESHOLD, config.getSmallFileThreshold());
+    setProperty(conf, FTPCopyActionConfig.CONTAINER_SIZE, config.getContainerSize());
+    setProperty(conf, FTPCopyActionConfig.COMPRESSION_CODEC, config.getCompressionCodec());
+    setProperty(conf, FTPCopyActionConfig.MIRRORS, config.getMirrors());
+    setProperty(conf, FTPCopyActionConfig.CHUNK_SIZE, config.getChunkSize());
+    setProperty(conf, FTPCopyActionConfig.APPEND_MODE, config.getAppendMode());
+    setProperty(conf, FTPCopyActionConfig.DESTINATION_PATH_TEMPLATE, config.getDestinationPathTemplate());
+    if (config.getPassword() != null) {
+      Credentials credentials = new Credentials();
+      credentials.addSecretKey(PASSWORD, config.getPassword().getBytes(StandardCharsets.UTF_8));
+      job.getCredentials().addAll(credentials);
+      UserGroupInformation.getCurrentUser().addCredentials(credentials);
+    }
+  }
+
+  /**
+   * Returns the config set with {@link #setConfig(Job, FTPCopyActionConfig)}, with the password from the job
+   * credentials, or from the credentials of the current user if the job credentials do not hold it.
+   */
+  static FTPCopyActionConfig getConfig(JobContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+    byte[] password = context.getCredentials().getSecretKey(PASSWORD);
+    if (password == null) {
+      password = UserGroupInformation.getCurrentUser().getCredentials().getSecretKey(PASSWORD);
+    }
+    return FTPCopyActionConfig.builder()
+      .setHost(getProperty(conf, FTPActionConfig.HOST))
+      .setPort(Integer.valueOf(getProperty(conf, FTPActionConfig.PORT)))
+      .setUserName(getProperty(conf, FTPActionConfig.USER_NAME))
+      .setPassword((password == null) ? null : new String(password, StandardCharsets.UTF_8))
+      .setDestDirectory(getProperty(conf, FTPActionConfig.DEST_DIRECTORY))
+      .setFileNameRegex(getProperty(conf, FTPActionConfig.FILE_NAME_REGEX))
+      .setMaxRetries(Integer.valueOf(getProperty(conf, FTPActionConfig.MAX_RETRIES)))
+      .setChecksumVerification(getProperty(conf, FTPActionConfig.CHECKSUM_VERIFICATION))
+      .setChecksumAlgorithm(getProperty(conf, FTPActionConfig.CHECKSUM_ALGORITHM))
+      .setChecksumManifest(getProperty(conf, FTPActionConfig.CHECKSUM_MANIFEST))
+      .setTransferEngine(getProperty(conf, FTPActionConfig.TRANSFER_ENGINE))
+      .setSrcDirectory(getProperty(conf, FTPCopyActionConfig.SOURCE_DIRECTORY))
+      .setExtractZipFiles(Boolean.valueOf(getProperty(conf, FTPCopyActionConfig.EXTRACT_ZIP_FILES)))
+      .setSmallFileThreshold(getLongProperty(conf, FTPCopyActionConfig.SMALL_FILE_THRESHOLD))
+      .setContainerSize(getLongProperty(conf, FTPCopyActionConfig.CONTAINER_SIZE))
+      .setCompressionCodec(getProperty(conf, FTPCopyActionConfig.COMPRESSION_CODEC))
+      .setMirrors(getProperty(conf, FTPCopyActionConfig.MIRRORS))
+      .setChunkSize(getLongProperty(conf, FTPCopyActionConfig.CHUNK_SIZE))
+      .setAppendMode(getProperty(conf, FTPCopyActionConfig.APPEND_MODE))
+      .setDestinationPathTemplate(getProperty(conf, FTPCopyActionConfig.DESTINATION_PATH_TEMPLATE))
+      .build();
+  }
+
+  private static void setProperty(Configuration conf, String name, @Nullable Object value) {
+    if (value != null) {
+      conf.set(PROPERTY_PREFIX + name, value.toString());
+    }
+  }
+
+  @Nullable
+  private static String getProperty(Configuration conf, String name) {
+    return conf.get(PROPERTY_PREFIX + name);
+  }
+
+  @Nullable
+  private static Long getLongProperty(Configuration conf, String name) {
+    String value = getProperty(conf, name);
+    return (value == null) ? null : Long.valueOf(value);
+  }
+
+  private void logProgress(Job job, Map<String, String> taskStates) throws IOException, InterruptedException {
+    Counters counters = job.getCounters();
+    if (counters != null) {
+      LOG.info("Job {} is {}% complete, {} files and {} bytes copied, {} files failed.", job.getJobID(),
+               Math.round(job.mapProgress() * 100), counters.findCounter(CopyCounter.FILES_COPIED).getValue(),
+               counters.findCounter(CopyCounter.BYTES_COPIED).getValue(),
+               counters.findCounter(CopyCounter.FILES_FAILED).getValue());
+    }
+    for (TaskReport report : job.getTaskReports(TaskType.MAP)) {
+      String state = String.format("%s, %s", report.getCurrentStatus(), report.getState());
+      if (!state.equals(taskStates.put(report.getTaskID().toString(), state))) {
+        LOG.info("Task {}: {}", report.getTaskID(), state);
+      }
+    }
+  }
+
+  /**
+   * Reads the outcome of every file written by the tasks, merges the checksums they recorded, and returns the
+   * names of the files that were copied.
+   */
+  private List<String> collectOutcomes() throws IOException {
+    List<String> copied = new ArrayList<>();
+    Map<String, String> failed = new TreeMap<>();
+    for (FileStatus status : fileSystem.listStatus(new Path(workDirectory, OUTCOMES),
+                                                   path -> path.getName().startsWith("part-"))) {
+      try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(status.getPath()))) {
+        Text file = new Text();
+        Text outcome = new Text();
+        while (reader.next(file, outcome)) {
+          if (COPIED.equals(outcome.toString())) {
+            copied.add(file.toString());
+          } else {
+            failed.put(file.toString(), outcome.toString());
+          }
+        }
+      }
+    }
+
+    ChecksumVerifier verifier = ChecksumVerifier.create(config, fileSystem,
+                                                        new Path(destination, FTPCopyAction.CHECKSUM_MANIFEST));
+    Path checksums = new Path(workDirectory, CHECKSUMS);
+    if (verifier != null && fileSystem.exists(checksums)) {
+      for (FileStatus status : fileSystem.listStatus(checksums)) {
+        verifier.mergeManifest(status.getPath());
+      }
+      verifier.saveManifest();
+    }
+
+    LOG.info("Copied {} files, {} files failed with a failure threshold of {}.",
+             copied.size(), failed.size(), config.getFailureThreshold());
+    if (failed.size() > config.getFailureThreshold()) {
+      throw new RuntimeException(String.format("Failed to copy %d files, more than the failure threshold of %d: %s",
+                                               failed.size(), config.getFailureThreshold(), failed));
+    }
+    return copied;
+  }
+
+  private static final class Bin {
+    private final List<FTPFile> files = new ArrayList<>();
+    private long size;
+  }
+}
@@ -35,6 +35,15 @@ public abstract class FTPActionConfig extends PluginConfig {
   public static final String PASSWORD = "password";
   public static final String DEST_DIRECTORY = "destDirectory";
   public static final String FILE_NAME_REGEX = "fileNameRegex";
+  public static final String MAX_CONNECTIONS = "maxConnections";
+  public static final String MAX_RETRIES = "maxRetries";
+  public static final String FAILURE_THRESHOLD = "failureThreshold";
+  public static final String CHECKSUM_VERIFICATION = "checksumVerification";
+  public static final String CHECKSUM_ALGORITHM = "checksumAlgorithm";
+  public static final String CHECKSUM_MANIFEST = "checksumManifest";
+  public static final String TRANSFER_ENGINE = "transferEngine";
+  public static final int DEFAULT_MAX_CONNECTIONS = 8;
+  public static final int DEFAULT_MAX_RETRIES = 3;
 
   @Name(HOST)
   @Description("Host name of the FTP server.")
@@ -71,14 +80,82 @@ public abstract class FTPActionConfig extends PluginConfig {
   @Macro
   private final String fileNameRegex;
 
+  @Name(MAX_CONNECTIONS)
+  @Description("Maximum number of concurrent connections to open to the FTP server. The number of connections " +
+    "actually used is adjusted while files are transferred, based on the observed throughput and on connections " +
+    "refused by the server. Defaults to 8.")
+  @Nullable
+  @Macro
+  private final Integer maxConnections;
+
+  @Name(MAX_RETRIES)
+  @Description("Number of times the transfer of a file is retried, on a new connection, before the file is " +
+    "considered failed. Defaults to 3.")
+  @Nullable
+  @Macro
+  private final Integer maxRetries;
+
+  @Name(FAILURE_THRESHOLD)
+  @Description("Number of files that are allowed to fail after all retries without failing the action. " +
+    "Defaults to 0.")
+  @Nullable
+  @Macro
+  private final Integer failureThreshold;
+
+  @Name(CHECKSUM_VERIFICATION)
+  @Description("Where the expected checksum of a transferred file is taken from: 'server' asks the FTP server " +
+    "with the HASH or XMD5/XSHA1/XSHA256/XCRC commands, 'sidecar' reads a checksum file next to the source file, " +
+    "'auto' tries the server first and the sidecar file next, and 'none' disables verification. " +
+    "Defaults to 'none'.")
+  @Nullable
+  @Macro
+  private final String checksumVerification;
+
+  @Name(CHECKSUM_ALGORITHM)
+  @Description("Checksum algorithm computed while files are transferred: 'MD5', 'SHA-1', 'SHA-256' or 'CRC32'. " +
+    "Defaults to 'MD5'.")
+  @Nullable
+  @Macro
+  private final String checksumAlgorithm;
+
+  @Name(CHECKSUM_MANIFEST)
+  @Description("Path of the file recording verified checksums, so that unchanged files are verified against the " +
+    "recorded checksum in later runs instead of asking the server again.")
+  @Nullable
+  @Macro
+  private final String checksumManifest;
+
+  @Name(TRANSFER_ENGINE)
+  @Description("Threads on which files are transferred: 'platform' uses one operating system thread per " +
+    "connection, while 'virtual' uses virtual threads, so that hundreds of connections can be served by a few " +
+    "threads when running on Java 21 or later. Defaults to 'platform'.")
+  @Nullable
+  @Macro
+  private final String transferEngine;
+
   public FTPActionConfig(String host, Integer port, String userName, String password, String destDirectory,
                          String fileNameRegex) {
+    this(host, port, userName, password, destDirectory, fileNameRegex, null, null, null, null, null, null, null);
+  }
+
+  protected FTPActionConfig(String host, Integer port, String userName, String password, String destDirectory,
+                            String fileNameRegex, @Nullable Integer maxConnections, @Nullable Integer maxRetries,
+                            @Nullable Integer failureThreshold, @Nullable String checksumVerification,
+                            @Nullable String checksumAlgorithm, @Nullable String checksumManifest,
+                            @Nullable String transferEngine) {
     this.host = host;
     this.port = port;
     this.userName = userName;
     this.password = password;
     this.destDirectory = destDirectory;
     this.fileNameRegex = fileNameRegex;
+    this.maxConnections = maxConnections;
+    this.maxRetries = maxRetries;
+    this.failureThreshold = failureThreshold;
+    this.checksumVerification = checksumVerification;
+    this.checksumAlgorithm = checksumAlgorithm;
+    this.checksumManifest = checksumManifest;
+    this.transferEngine = transferEngine;
   }
 
   public String getHost() {
@@ -105,6 +182,35 @@ public abstract class FTPActionConfig extends PluginConfig {
     return (fileNameRegex != null) ? fileNameRegex : ".*";
   }
 
+  public int getMaxConnections() {
+    return (maxConnections != null) ? maxConnections : DEFAULT_MAX_CONNECTIONS;
+  }
+
+  public int getMaxRetries() {
+    return (maxRetries != null) ? maxRetries : DEFAULT_MAX_RETRIES;
+  }
+
+  public int getFailureThreshold() {
+    return (failureThreshold != null) ? failureThreshold : 0;
+  }
+
+  public String getChecksumVerification() {
+    return Strings.isNullOrEmpty(checksumVerification) ? "none" : checksumVerification;
+  }
+
+  public String getChecksumAlgorithm() {
+    return Strings.isNullOrEmpty(checksumAlgorithm) ? ChecksumAlgorithm.MD5.getName() : checksumAlgorithm;
+  }
+
+  @Nullable
+  public String getChecksumManifest() {
+    return Strings.isNullOrEmpty(checksumManifest) ? null : checksumManifest;
+  }
+
+  public String getTransferEngine() {
+    return Strings.isNullOrEmpty(transferEngine) ? TransferEngine.PLATFORM.getName() : transferEngine;
+  }
+
   public void validate(FailureCollector collector) {
     if (!containsMacro(HOST) && Strings.isNullOrEmpty(host)) {
       collector.addFailure("Host must be specified.", null).withConfigProperty(HOST);
@@ -118,5 +224,40 @@ public abstract class FTPActionConfig extends PluginConfig {
       collector.addFailure("Invalid port: " + port, "Port should be in range [0;65535]")
         .withConfigProperty(PORT);
     }
+
+    if (!containsMacro(MAX_CONNECTIONS) && maxConnections != null && maxConnections < 1) {
+      collector.addFailure("Invalid maximum number of connections: " + maxConnections,
+                           "Maximum number of connections should be at least 1.")
+        .withConfigProperty(MAX_CONNECTIONS);
+    }
+
+    if (!containsMacro(MAX_RETRIES) && maxRetries != null && maxRetries < 0) {
+      collector.addFailure("Invalid number of retries: " + maxRetries, "Number of retries should not be negative.")
+        .withConfigProperty(MAX_RETRIES);
+    }
+
+    if (!containsMacro(FAILURE_THRESHOLD) && failureThreshold != null && failureThreshold < 0) {
+      collector.addFailure("Invalid failure threshold: " + failureThreshold,
+                           "Failure threshold should not be negative.")
+        .withConfigProperty(FAILURE_THRESHOLD);
+    }
+
+    if (!containsMacro(CHECKSUM_VERIFICATION) && ChecksumVerifier.Mode.fromName(getChecksumVerification()) == null) {
+      collector.addFailure("Invalid checksum verification: " + checksumVerification,
+                           "Checksum verification should be one of 'none', 'auto', 'server' or 'sidecar'.")
+        .withConfigProperty(CHECKSUM_VERIFICATION);
+    }
+
+    if (!containsMacro(CHECKSUM_ALGORITHM) && ChecksumAlgorithm.fromName(getChecksumAlgorithm()) == null) {
+      collector.addFailure("Invalid checksum algorithm: " + checksumAlgorithm,
+                           "Checksum algorithm should be one of 'MD5', 'SHA-1', 'SHA-256' or 'CRC32'.")
+        .withConfigProperty(CHECKSUM_ALGORITHM);
+    }
+
+    if (!containsMacro(TRANSFER_ENGINE) && TransferEngine.fromName(getTransferEngine()) == null) {
+      collector.addFailure("Invalid transfer engine: " + transferEngine,
+                           "Transfer engine should be one of 'platform' or 'virtual'.")
+        .withConfigProperty(TRANSFER_ENGINE);
+    }
   }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+/**
+ * Thrown when the FTP server refuses a new connection or login, for example with a {@code 421} or {@code 530}
+ * reply. Servers commonly answer this way when the per-user or per-host connection limit has been reached.
+ */
+public class FTPConnectionRefusedException extends RuntimeException {
+  private final int replyCode;
+
+  public FTPConnectionRefusedException(String message, int replyCode) {
+    super(message);
+    this.replyCode = replyCode;
+  }
+
+  public FTPConnectionRefusedException(String message, int replyCode, Throwable cause) {
+    super(message, cause);
+    this.replyCode = replyCode;
+  }
+
+  public int getReplyCode() {
+    return replyCode;
+  }
+}
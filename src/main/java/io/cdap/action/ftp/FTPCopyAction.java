@@ -16,7 +16,7 @@
 
 package io.cdap.action.ftp;
 
-import com.google.common.io.ByteStreams;
+import com.google.common.net.HostAndPort;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
 import io.cdap.cdap.etl.api.FailureCollector;
@@ -31,12 +31,13 @@ import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * An {@link Action} that will copy files from FTP server to the destination directory.
@@ -45,8 +46,29 @@ import java.util.zip.ZipInputStream;
 @Name("FTPCopy")
 public class FTPCopyAction extends Action {
   private static final Logger LOG = LoggerFactory.getLogger(FTPCopyAction.class);
+  // Files starting with an underscore are ignored by Hadoop input formats reading the destination directory
+  static final String CHECKSUM_MANIFEST = "_ftp_checksums.tsv";
+  static final String LISTING_SNAPSHOT = "_ftp_listing.tsv";
+  private static final String WORK_DIRECTORY_PREFIX = "_ftp_copy_";
   private FTPCopyActionConfig config;
 
+  /**
+   * Where the files are copied.
+   */
+  enum ExecutionMode {
+    LOCAL, DISTRIBUTED;
+
+    @Nullable
+    static ExecutionMode fromName(String name) {
+      for (ExecutionMode mode : values()) {
+        if (mode.name().equalsIgnoreCase(name)) {
+          return mode;
+        }
+      }
+      return null;
+    }
+  }
+
   public FTPCopyAction(FTPCopyActionConfig config) {
     this.config = config;
   }
@@ -64,44 +86,25 @@ public class FTPCopyAction extends Action {
     config.validate(collector);
     collector.getOrThrowException();
 
-    Path destination = new Path(config.getDestDirectory());
-    FileSystem fileSystem = FileSystem.get(new Configuration());
-    destination = fileSystem.makeQualified(destination);
-    if (!fileSystem.exists(destination)) {
-      fileSystem.mkdirs(destination);
+    Configuration conf = new Configuration();
+    List<CopyTarget> targets = new ArrayList<>();
+    for (FTPCopyActionConfig transferConfig : config.getTransferConfigs()) {
+      // Destinations may be on other file systems than the default one
+      Path destination = new Path(transferConfig.getDestDirectory());
+      FileSystem fileSystem = destination.getFileSystem(conf);
+      destination = fileSystem.makeQualified(destination);
+      if (!fileSystem.exists(destination)) {
+        fileSystem.mkdirs(destination);
+      }
+      targets.add(new CopyTarget(transferConfig, fileSystem, destination));
     }
 
     FTPClient ftp = null;
     try {
-      ftp = FTPUtils.getFTPClient(config.getHost(), config.getPort(), config.getUserName(), config.getPassword());
-
-      FTPFile[] ftpFiles = ftp.listFiles(config.getSrcDirectory());
-      LOG.info("listFiles command reply code: {}, {}.", ftp.getReplyCode(), ftp.getReplyString());
-
-      for (FTPFile file : ftpFiles) {
-        String source = config.getSrcDirectory() + "/" + file.getName();
-
-        // Ignore files that don't match the given file regex
-        String fileName = file.getName();
-        if (!fileName.matches(config.getFileNameRegex())) {
-          LOG.debug("Skipping file {} since it doesn't match the regex.", fileName);
-          continue;
-        }
-
-        LOG.info("Current file {}, source {}", file.getName(), source);
-        if (config.getExtractZipFiles() && file.getName().endsWith(".zip")) {
-          copyZip(ftp, source, fileSystem, destination);
-        } else {
-          Path destinationPath = fileSystem.makeQualified(new Path(destination, file.getName()));
-          LOG.debug("Downloading {} to {}", file.getName(), destinationPath.toString());
-          try (OutputStream output = fileSystem.create(destinationPath)) {
-            InputStream is = ftp.retrieveFileStream(source);
-            ByteStreams.copy(is, output);
-          }
-        }
-        if (!ftp.completePendingCommand()) {
-          LOG.error("Error completing command.");
-        }
+      // All transfers are listed over the same connection
+      ftp = connect();
+      for (CopyTarget target : targets) {
+        list(ftp, target, context.getLogicalStartTime());
       }
       ftp.logout();
     } finally {
@@ -113,20 +116,170 @@ public class FTPCopyAction extends Action {
         }
       }
     }
+
+    if (ExecutionMode.fromName(config.getExecutionMode()) == ExecutionMode.DISTRIBUTED) {
+      for (CopyTarget target : targets) {
+        Path workDirectory = new Path(target.destination, WORK_DIRECTORY_PREFIX + context.getLogicalStartTime());
+        target.copied.addAll(new DistributedCopy(target.config, conf, target.fileSystem, target.destination,
+                                                 workDirectory,
+                                                 context.getLogicalStartTime()).run(target.files));
+      }
+    } else {
+      copy(conf, targets, context.getLogicalStartTime());
+    }
+
+    for (CopyTarget target : targets) {
+      if (target.snapshot != null) {
+        // Directories with files that were not copied must be listed again by the next run
+        Set<String> copiedFiles = new HashSet<>(target.copied);
+        for (FTPFile file : target.files) {
+          if (!copiedFiles.contains(file.getName())) {
+            target.snapshot.invalidate(file.getName());
+          }
+        }
+        target.snapshot.save(target.fileSystem, new Path(target.destination, LISTING_SNAPSHOT));
+      }
+    }
+
+    // Only touch the sources once all destination files, including packed containers, are closed
+    SourceArchiver.Mode postCopyMode = SourceArchiver.Mode.fromName(config.getPostCopyAction());
+    String archiveDirectory = (config.getArchiveDirectory() == null) ? null :
+      PathTemplate.expand(config.getArchiveDirectory(), PathTemplate.dateTokens(context.getLogicalStartTime()));
+    for (CopyTarget target : targets) {
+      new SourceArchiver(target.config, this::connect, postCopyMode, archiveDirectory).run(target.copied);
+    }
   }
 
-  private void copyZip(FTPClient ftp, String source, FileSystem fs, Path destination) throws IOException {
-    InputStream is = ftp.retrieveFileStream(source);
-    try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is))) {
-      ZipEntry entry;
-      while ((entry = zis.getNextEntry()) != null) {
-        LOG.debug("Extracting {}", entry);
-        Path destinationPath = fs.makeQualified(new Path(destination, entry.getName()));
-        try (OutputStream os = fs.create(destinationPath)) {
-          LOG.debug("Downloading {} to {}", entry.getName(), destinationPath.toString());
-          ByteStreams.copy(zis, os);
+  /**
+   * Lists the files to copy for a transfer. Recursive listings prune the subtrees that settled before the quiet
+   * period preceding the logical start time, so that a rerun of the same run lists the same directories.
+   */
+  private void list(FTPClient ftp, CopyTarget target, long logicalStartTime) throws IOException {
+    FTPCopyActionConfig transferConfig = target.config;
+    if (transferConfig.getRecursive()) {
+      Path snapshotPath = new Path(target.destination, LISTING_SNAPSHOT);
+      DirectoryWalker walker = new DirectoryWalker(ftp, transferConfig.getSrcDirectory(),
+                                                   transferConfig.getFileNameRegex(),
+                                                   ListingSnapshot.load(target.fileSystem, snapshotPath),
+                                                   logicalStartTime - config.getPruneQuietPeriodMillis());
+      target.files.addAll(walker.walk());
+      target.snapshot = walker.getSnapshot();
+      return;
+    }
+
+    FTPFile[] ftpFiles = ftp.listFiles(transferConfig.getSrcDirectory());
+    LOG.info("listFiles command reply code: {}, {}.", ftp.getReplyCode(), ftp.getReplyString());
+
+    for (FTPFile file : ftpFiles) {
+      // Ignore files that don't match the given file regex
+      String fileName = file.getName();
+      if (!fileName.matches(transferConfig.getFileNameRegex())) {
+        LOG.debug("Skipping file {} since it doesn't match the regex.", fileName);
+        continue;
+      }
+      target.files.add(file);
+    }
+  }
+
+  /**
+   * Copies the files of all transfers from this process over one shared set of connections, and records the names
+   * of the files that were copied.
+   */
+  private void copy(Configuration conf, List<CopyTarget> targets, long logicalStartTime) throws Exception {
+    TransferRunner<CopyItem> runner = new TransferRunner<>(config.getHosts(), config.getMaxConnections(),
+                                                           config.getMaxRetries(), config.getFailureThreshold(),
+                                                           TransferEngine.fromName(config.getTransferEngine()),
+                                                           this::connect);
+    DestinationCompression compression = DestinationCompression.of(conf, config.getCompressionCodec());
+    List<CopyItem> items = new ArrayList<>();
+    List<SmallFilePacker> packers = new ArrayList<>();
+    List<ChecksumVerifier> verifiers = new ArrayList<>();
+    try {
+      for (CopyTarget target : targets) {
+        SmallFilePacker packer = (config.getSmallFileThreshold() == null) ? null :
+          new SmallFilePacker(conf, target.destination, config.getContainerSize(),
+                              (compression == null) ? null : compression.getCodec(), logicalStartTime);
+        if (packer != null) {
+          packers.add(packer);
+        }
+        ChecksumVerifier verifier = ChecksumVerifier.create(target.config, target.fileSystem,
+                                                            new Path(target.destination, CHECKSUM_MANIFEST));
+        if (verifier != null) {
+          verifiers.add(verifier);
+        }
+        FileCopier copier = new FileCopier(target.config, target.fileSystem, target.destination, packer,
+                                           compression, verifier);
+        for (FTPFile file : target.files) {
+          items.add(new CopyItem(target, copier, file));
+        }
+      }
+      runner.run(items, item -> item.target.config.getSrcDirectory() + "/" + item.file.getName(), (session, item) -> {
+        item.copier.copyFile(session, item.file);
+        item.target.copied.add(item.file.getName());
+      });
+    } finally {
+      for (SmallFilePacker packer : packers) {
+        packer.close();
+      }
+      for (ChecksumVerifier verifier : verifiers) {
+        verifier.log();
+        verifier.saveManifest();
+      }
+    }
+  }
+
+  /**
+   * Connects to the host, or to the first of its mirrors that can be reached.
+   */
+  private FTPClient connect() throws IOException {
+    List<String> hosts = config.getHosts();
+    for (int i = 0; ; i++) {
+      try {
+        return connect(hosts.get(i));
+      } catch (IOException e) {
+        if (i == hosts.size() - 1) {
+          throw e;
         }
+        LOG.warn("Failed to connect to {}, trying mirror {} instead.", hosts.get(i), hosts.get(i + 1), e);
       }
     }
   }
+
+  private FTPClient connect(String host) throws IOException {
+    return FTPUtils.getFTPClient(HostAndPort.fromString(host).withDefaultPort(config.getPort()),
+                                 config.getUserName(), config.getPassword());
+  }
+
+  /**
+   * A transfer of the run: the files to copy from its source directory and the outcome.
+   */
+  private static final class CopyTarget {
+    private final FTPCopyActionConfig config;
+    private final FileSystem fileSystem;
+    private final Path destination;
+    private final List<FTPFile> files = new ArrayList<>();
+    private final List<String> copied = Collections.synchronizedList(new ArrayList<>());
+    private ListingSnapshot snapshot;
+
+    private CopyTarget(FTPCopyActionConfig config, FileSystem fileSystem, Path destination) {
+      this.config = config;
+      this.fileSystem = fileSystem;
+      this.destination = destination;
+    }
+  }
+
+  /**
+   * A file to copy, together with its transfer.
+   */
+  private static final class CopyItem {
+    private final CopyTarget target;
+    private final FileCopier copier;
+    private final FTPFile file;
+
+    private CopyItem(CopyTarget target, FileCopier copier, FTPFile file) {
+      this.target = target;
+      this.copier = copier;
+      this.file = file;
+    }
+  }
 }
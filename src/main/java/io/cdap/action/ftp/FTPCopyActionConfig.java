@@ -16,12 +16,23 @@
 
 package io.cdap.action.ftp;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.net.HostAndPort;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.etl.api.FailureCollector;
+import org.apache.hadoop.conf.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import javax.annotation.Nullable;
 
 /**
@@ -30,6 +41,25 @@ import javax.annotation.Nullable;
 public class FTPCopyActionConfig extends FTPActionConfig {
   public static final String SOURCE_DIRECTORY = "srcDirectory";
   public static final String EXTRACT_ZIP_FILES = "extractZipFiles";
+  public static final String SMALL_FILE_THRESHOLD = "smallFileThreshold";
+  public static final String CONTAINER_SIZE = "containerSize";
+  public static final String COMPRESSION_CODEC = "compressionCodec";
+  public static final String POST_COPY_ACTION = "postCopyAction";
+  public static final String ARCHIVE_DIRECTORY = "archiveDirectory";
+  public static final String EXECUTION_MODE = "executionMode";
+  public static final String MAX_TASKS = "maxTasks";
+  public static final String RECURSIVE = "recursive";
+  public static final String PRUNE_QUIET_PERIOD = "pruneQuietPeriod";
+  public static final String MIRRORS = "mirrors";
+  public static final String TRANSFERS = "transfers";
+  public static final String CHUNK_SIZE = "chunkSize";
+  public static final String APPEND_MODE = "appendMode";
+  public static final String DESTINATION_PATH_TEMPLATE = "destinationPathTemplate";
+  public static final long DEFAULT_CONTAINER_SIZE = 128L * 1024 * 1024;
+  // Packed files are read into memory, one per connection
+  public static final long MAX_SMALL_FILE_THRESHOLD = 64L * 1024 * 1024;
+  public static final int DEFAULT_MAX_TASKS = 10;
+  public static final long DEFAULT_PRUNE_QUIET_PERIOD = 24;
 
   @Name(SOURCE_DIRECTORY)
   @Description("Directory on the FTP server which is to be copied.")
@@ -42,17 +72,157 @@ public class FTPCopyActionConfig extends FTPActionConfig {
   @Nullable
   private final Boolean extractZipFiles;
 
+  @Name(SMALL_FILE_THRESHOLD)
+  @Description("Files smaller than this number of bytes are packed into SequenceFile containers in the " +
+    "destination directory instead of being copied one by one. Each file becomes a record keyed by its source " +
+    "path. Packed files are read into memory, so the threshold is at most 64 MB. By default, small files are not " +
+    "packed.")
+  @Nullable
+  @Macro
+  private final Long smallFileThreshold;
+
+  @Name(CONTAINER_SIZE)
+  @Description("Target size in bytes of each container file when small files are packed. Defaults to 128 MB.")
+  @Nullable
+  @Macro
+  private final Long containerSize;
+
+  @Name(COMPRESSION_CODEC)
+  @Description("Hadoop compression codec used to compress files written to the destination, for example 'gzip', " +
+    "'bzip2', 'snappy' or 'deflate'. The codec extension is appended to the file names. Source files compressed " +
+    "with a different codec are decompressed and re-encoded while copying. Defaults to 'none'.")
+  @Nullable
+  @Macro
+  private final String compressionCodec;
+
+  @Name(POST_COPY_ACTION)
+  @Description("What happens to source files on the FTP server after they were copied successfully: 'delete' " +
+    "deletes them, 'archive' moves them into the archive directory, and 'none' leaves them in place. " +
+    "Defaults to 'none'.")
+  @Nullable
+  @Macro
+  private final String postCopyAction;
+
+  @Name(ARCHIVE_DIRECTORY)
+  @Description("Directory on the FTP server into which copied files are moved when the post copy action is " +
+    "'archive'. The tokens ${yyyy}, ${MM}, ${dd} and ${HH} are replaced with the UTC time of the run, to archive " +
+    "into dated subdirectories.")
+  @Nullable
+  @Macro
+  private final String archiveDirectory;
+
+  @Name(EXECUTION_MODE)
+  @Description("Where files are copied: 'local' copies them from the action, and 'distributed' launches a " +
+    "MapReduce job partitioning the files across tasks by size, with each task copying its files over its own " +
+    "connections. Defaults to 'local'.")
+  @Nullable
+  @Macro
+  private final String executionMode;
+
+  @Name(MAX_TASKS)
+  @Description("Maximum number of tasks copying files in distributed mode. Defaults to 10.")
+  @Nullable
+  @Macro
+  private final Integer maxTasks;
+
+  @Name(RECURSIVE)
+  @Description("Whether files in subdirectories of the source directory are copied too, into the same " +
+    "subdirectories of the destination. Directories that did not change since the previous run are not listed or " +
+    "copied again. Defaults to 'false'.")
+  @Nullable
+  @Macro
+  private final Boolean recursive;
+
+  @Name(PRUNE_QUIET_PERIOD)
+  @Description("Number of hours without changes after which a subtree of the source directory is considered " +
+    "settled when copying recursively. Settled subtrees are not listed again while their modification time does " +
+    "not change. Defaults to 24 hours.")
+  @Nullable
+  @Macro
+  private final Long pruneQuietPeriod;
+
+  @Name(MIRRORS)
+  @Description("Comma separated list of mirror hosts serving the same files as the host, each as 'host' or " +
+    "'host:port'. Files are spread across the host and its mirrors based on the throughput each of them delivers, " +
+    "and a file that fails on one of them is retried on another one.")
+  @Nullable
+  @Macro
+  private final String mirrors;
+
+  @Name(TRANSFERS)
+  @Description("JSON array of additional transfers copied in the same run and over the same connections, each " +
+    "with a 'srcDirectory', a 'destDirectory', and optionally a 'fileNameRegex' and 'extractZipFiles' " +
+    "overriding the ones of this action.")
+  @Nullable
+  @Macro
+  private final String transfers;
+
+  @Name(CHUNK_SIZE)
+  @Description("Size in bytes above which copied files are split into line aligned chunk files, so that " +
+    "downstream stages can read them in parallel. Compressed source files are decompressed and, when a compression " +
+    "codec is set, every chunk is compressed on its own. Only meant for line oriented text files.")
+  @Nullable
+  @Macro
+  private final Long chunkSize;
+
+  @Name(APPEND_MODE)
+  @Description("How files that grew on the FTP server since they were last copied are copied again. 'none' copies " +
+    "them in full, 'append' downloads only the new bytes and appends them to the destination file, and 'delta' " +
+    "writes the new bytes to numbered delta files next to it. Defaults to 'none'.")
+  @Nullable
+  @Macro
+  private final String appendMode;
+
+  @Name(DESTINATION_PATH_TEMPLATE)
+  @Description("Path of every copied file relative to the destination directory, with the tokens ${yyyy}, ${MM}, " +
+    "${dd} and ${HH} of its modification time in UTC, ${path} and ${name} for its source path and file name, " +
+    "${entry} for the name of an extracted zip entry, and ${1}, ${2} and so on for the groups captured by the file " +
+    "name regex. By default, files keep their source path.")
+  @Nullable
+  @Macro
+  private final String destinationPathTemplate;
+
   public FTPCopyActionConfig(String host, Integer port, String userName, String password, String srcDirectory,
                              String destDirectory, String fileNameRegex, boolean extractZipFiles) {
     super(host, port, userName, password, destDirectory, fileNameRegex);
     this.srcDirectory = srcDirectory;
     this.extractZipFiles = extractZipFiles;
+    this.smallFileThreshold = null;
+    this.containerSize = null;
+    this.compressionCodec = null;
+    this.postCopyAction = null;
+    this.archiveDirectory = null;
+    this.executionMode = null;
+    this.maxTasks = null;
+    this.recursive = null;
+    this.pruneQuietPeriod = null;
+    this.mirrors = null;
+    this.transfers = null;
+    this.chunkSize = null;
+    this.appendMode = null;
+    this.destinationPathTemplate = null;
   }
 
   private FTPCopyActionConfig(Builder builder) {
-    super(builder.host, builder.port, builder.userName, builder.password, builder.destDirectory, builder.fileNameRegex);
+    super(builder.host, builder.port, builder.userName, builder.password, builder.destDirectory, builder.fileNameRegex,
+          builder.maxConnections, builder.maxRetries, builder.failureThreshold, builder.checksumVerification,
+          builder.checksumAlgorithm, builder.checksumManifest, builder.transferEngine);
     srcDirectory = builder.srcDirectory;
     extractZipFiles = builder.extractZipFiles;
+    smallFileThreshold = builder.smallFileThreshold;
+    containerSize = builder.containerSize;
+    compressionCodec = builder.compressionCodec;
+    postCopyAction = builder.postCopyAction;
+    archiveDirectory = builder.archiveDirectory;
+    executionMode = builder.executionMode;
+    maxTasks = builder.maxTasks;
+    recursive = builder.recursive;
+    pruneQuietPeriod = builder.pruneQuietPeriod;
+    mirrors = builder.mirrors;
+    transfers = builder.transfers;
+    chunkSize = builder.chunkSize;
+    appendMode = builder.appendMode;
+    destinationPathTemplate = builder.destinationPathTemplate;
   }
 
   public static Builder builder() {
@@ -67,8 +237,29 @@ public class FTPCopyActionConfig extends FTPActionConfig {
     builder.setPassword(copy.getPassword());
     builder.setDestDirectory(copy.getDestDirectory());
     builder.setFileNameRegex(copy.getFileNameRegex());
+    builder.setMaxConnections(copy.getMaxConnections());
+    builder.setMaxRetries(copy.getMaxRetries());
+    builder.setFailureThreshold(copy.getFailureThreshold());
+    builder.setChecksumVerification(copy.getChecksumVerification());
+    builder.setChecksumAlgorithm(copy.getChecksumAlgorithm());
+    builder.setChecksumManifest(copy.getChecksumManifest());
+    builder.setTransferEngine(copy.getTransferEngine());
     builder.setSrcDirectory(copy.getSrcDirectory());
     builder.setExtractZipFiles(copy.getExtractZipFiles());
+    builder.setSmallFileThreshold(copy.getSmallFileThreshold());
+    builder.setContainerSize(copy.getContainerSize());
+    builder.setCompressionCodec(copy.getCompressionCodec());
+    builder.setPostCopyAction(copy.getPostCopyAction());
+    builder.setArchiveDirectory(copy.getArchiveDirectory());
+    builder.setExecutionMode(copy.getExecutionMode());
+    builder.setMaxTasks(copy.getMaxTasks());
+    builder.setRecursive(copy.getRecursive());
+    builder.setPruneQuietPeriod(copy.pruneQuietPeriod);
+    builder.setMirrors(copy.getMirrors());
+    builder.setTransfers(copy.getTransfers());
+    builder.setChunkSize(copy.getChunkSize());
+    builder.setAppendMode(copy.getAppendMode());
+    builder.setDestinationPathTemplate(copy.getDestinationPathTemplate());
     return builder;
   }
 
@@ -80,6 +271,108 @@ public class FTPCopyActionConfig extends FTPActionConfig {
     return (extractZipFiles != null) ? extractZipFiles : true;
   }
 
+  @Nullable
+  public Long getSmallFileThreshold() {
+    return smallFileThreshold;
+  }
+
+  public long getContainerSize() {
+    return (containerSize != null) ? containerSize : DEFAULT_CONTAINER_SIZE;
+  }
+
+  public String getCompressionCodec() {
+    return Strings.isNullOrEmpty(compressionCodec) ? DestinationCompression.NONE : compressionCodec;
+  }
+
+  public String getPostCopyAction() {
+    return Strings.isNullOrEmpty(postCopyAction) ? "none" : postCopyAction;
+  }
+
+  @Nullable
+  public String getArchiveDirectory() {
+    return archiveDirectory;
+  }
+
+  public String getExecutionMode() {
+    return Strings.isNullOrEmpty(executionMode) ? "local" : executionMode;
+  }
+
+  public int getMaxTasks() {
+    return (maxTasks != null) ? maxTasks : DEFAULT_MAX_TASKS;
+  }
+
+  public boolean getRecursive() {
+    return (recursive != null) ? recursive : false;
+  }
+
+  public long getPruneQuietPeriodMillis() {
+    return TimeUnit.HOURS.toMillis((pruneQuietPeriod != null) ? pruneQuietPeriod : DEFAULT_PRUNE_QUIET_PERIOD);
+  }
+
+  @Nullable
+  public String getMirrors() {
+    return Strings.isNullOrEmpty(mirrors) ? null : mirrors;
+  }
+
+  /**
+   * Returns the host followed by its mirrors, each as 'host' or 'host:port'.
+   */
+  public List<String> getHosts() {
+    List<String> hosts = new ArrayList<>();
+    hosts.add(getHost());
+    if (!Strings.isNullOrEmpty(mirrors)) {
+      hosts.addAll(Splitter.on(',').trimResults().omitEmptyStrings().splitToList(mirrors));
+    }
+    return hosts;
+  }
+
+  @Nullable
+  public String getTransfers() {
+    return Strings.isNullOrEmpty(transfers) ? null : transfers;
+  }
+
+  /**
+   * Returns the config of every transfer of the run: this config, followed by the configs of the additional
+   * transfers, which only differ in the source, destination, file name regex and zip extraction.
+   */
+  public List<FTPCopyActionConfig> getTransferConfigs() {
+    List<FTPCopyActionConfig> configs = new ArrayList<>();
+    configs.add(this);
+    if (Strings.isNullOrEmpty(transfers)) {
+      return configs;
+    }
+    for (TransferSpec spec : TransferSpec.parseList(transfers)) {
+      Builder builder = builder(this)
+        .setSrcDirectory(spec.getSrcDirectory())
+        .setDestDirectory(spec.getDestDirectory())
+        // Every transfer keeps its checksums next to its own files
+        .setChecksumManifest(null)
+        .setTransfers(null);
+      if (spec.getFileNameRegex() != null) {
+        builder.setFileNameRegex(spec.getFileNameRegex());
+      }
+      if (spec.getExtractZipFiles() != null) {
+        builder.setExtractZipFiles(spec.getExtractZipFiles());
+      }
+      configs.add(builder.build());
+    }
+    return configs;
+  }
+
+  @Nullable
+  public Long getChunkSize() {
+    return chunkSize;
+  }
+
+  public String getAppendMode() {
+    return Strings.isNullOrEmpty(appendMode) ? "none" : appendMode;
+  }
+
+  @Nullable
+  public String getDestinationPathTemplate() {
+    return Strings.isNullOrEmpty(destinationPathTemplate) ? null : destinationPathTemplate;
+  }
+
   @Override
   public void validate(FailureCollector collector) {
     super.validate(collector);
@@ -88,6 +381,161 @@ public class FTPCopyActionConfig extends FTPActionConfig {
       collector.addFailure("Source directory must be specified.", null)
         .withConfigProperty(SOURCE_DIRECTORY);
     }
+
+    if (!containsMacro(SMALL_FILE_THRESHOLD) && smallFileThreshold != null
+      && (smallFileThreshold <= 0 || smallFileThreshold > MAX_SMALL_FILE_THRESHOLD)) {
+      collector.addFailure("Invalid small file threshold: " + smallFileThreshold,
+                           "Small file threshold should be a positive number of bytes, at most " +
+                             MAX_SMALL_FILE_THRESHOLD + ".")
+        .withConfigProperty(SMALL_FILE_THRESHOLD);
+    }
+
+    if (!containsMacro(CONTAINER_SIZE) && containerSize != null && containerSize <= 0) {
+      collector.addFailure("Invalid container size: " + containerSize,
+                           "Container size should be a positive number of bytes.")
+        .withConfigProperty(CONTAINER_SIZE);
+    }
+
+    if (!containsMacro(CHUNK_SIZE) && chunkSize != null && chunkSize <= 0) {
+      collector.addFailure("Invalid chunk size: " + chunkSize, "Chunk size should be a positive number of bytes.")
+        .withConfigProperty(CHUNK_SIZE);
+    }
+
+    if (!containsMacro(APPEND_MODE)) {
+      LandedFile.Mode mode = LandedFile.Mode.fromName(getAppendMode());
+      ChecksumVerifier.Mode checksumMode = ChecksumVerifier.Mode.fromName(getChecksumVerification());
+      if (mode == null) {
+        collector.addFailure("Invalid append mode: " + appendMode,
+                             "Append mode should be one of 'none', 'append' or 'delta'.")
+          .withConfigProperty(APPEND_MODE);
+      } else if (mode != LandedFile.Mode.NONE
+        && (!DestinationCompression.NONE.equalsIgnoreCase(getCompressionCodec()) || chunkSize != null
+        || (checksumMode != null && checksumMode != ChecksumVerifier.Mode.NONE))) {
+        collector.addFailure("Append mode '" + appendMode + "' only supports files that are copied unchanged.",
+                             "Set no compression codec, no chunk size and no checksum verification, or set the " +
+                               "append mode to 'none'.")
+          .withConfigProperty(APPEND_MODE);
+      }
+    }
+
+    if (!containsMacro(DESTINATION_PATH_TEMPLATE) && !containsMacro(FILE_NAME_REGEX)
+      && getDestinationPathTemplate() != null) {
+      validateDestinationPathTemplate(collector);
+    }
+
+    if (!containsMacro(COMPRESSION_CODEC) && !Strings.isNullOrEmpty(compressionCodec)) {
+      try {
+        DestinationCompression.of(new Configuration(), compressionCodec);
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Use a codec known to Hadoop, such as 'gzip', 'bzip2' or 'snappy'.")
+          .withConfigProperty(COMPRESSION_CODEC);
+      }
+    }
+
+    if (!containsMacro(POST_COPY_ACTION)) {
+      SourceArchiver.Mode mode = SourceArchiver.Mode.fromName(getPostCopyAction());
+      if (mode == null) {
+        collector.addFailure("Invalid post copy action: " + postCopyAction,
+                             "Post copy action should be one of 'none', 'delete' or 'archive'.")
+          .withConfigProperty(POST_COPY_ACTION);
+      } else if (mode == SourceArchiver.Mode.ARCHIVE && !containsMacro(ARCHIVE_DIRECTORY)
+        && Strings.isNullOrEmpty(archiveDirectory)) {
+        collector.addFailure("Archive directory must be specified when the post copy action is 'archive'.", null)
+          .withConfigProperty(ARCHIVE_DIRECTORY);
+      }
+    }
+
+    if (!containsMacro(MIRRORS) && !Strings.isNullOrEmpty(mirrors)) {
+      for (String mirror : getHosts().subList(1, getHosts().size())) {
+        try {
+          HostAndPort.fromString(mirror);
+        } catch (IllegalArgumentException e) {
+          collector.addFailure("Invalid mirror: " + mirror, "Mirrors should be given as 'host' or 'host:port'.")
+            .withConfigProperty(MIRRORS);
+        }
+      }
+      SourceArchiver.Mode postCopyMode = SourceArchiver.Mode.fromName(getPostCopyAction());
+      if (!containsMacro(POST_COPY_ACTION) && postCopyMode != null && postCopyMode != SourceArchiver.Mode.NONE) {
+        collector.addFailure("Post copy actions are not supported with mirrors.",
+                             "Source files exist on every mirror, so set the post copy action to 'none'.")
+          .withConfigProperty(POST_COPY_ACTION);
+      }
+    }
+
+    if (!containsMacro(TRANSFERS) && !Strings.isNullOrEmpty(transfers)) {
+      validateTransfers(collector);
+    }
+
+    if (!containsMacro(EXECUTION_MODE) && FTPCopyAction.ExecutionMode.fromName(getExecutionMode()) == null) {
+      collector.addFailure("Invalid execution mode: " + executionMode,
+                           "Execution mode should be one of 'local' or 'distributed'.")
+        .withConfigProperty(EXECUTION_MODE);
+    }
+
+    if (!containsMacro(MAX_TASKS) && maxTasks != null && maxTasks < 1) {
+      collector.addFailure("Invalid maximum number of tasks: " + maxTasks,
+                           "Maximum number of tasks should be at least 1.")
+        .withConfigProperty(MAX_TASKS);
+    }
+
+    if (!containsMacro(PRUNE_QUIET_PERIOD) && pruneQuietPeriod != null && pruneQuietPeriod < 0) {
+      collector.addFailure("Invalid prune quiet period: " + pruneQuietPeriod,
+                           "Prune quiet period should not be a negative number of hours.")
+        .withConfigProperty(PRUNE_QUIET_PERIOD);
+    }
+  }
+
+  private void validateDestinationPathTemplate(FailureCollector collector) {
+    if (destinationPathTemplate.startsWith("/")) {
+      collector.addFailure("Destination path template must be relative: " + destinationPathTemplate,
+                           "Files are laid out relative to the destination directory, so remove the leading '/'.")
+        .withConfigProperty(DESTINATION_PATH_TEMPLATE);
+      return;
+    }
+    int groups;
+    try {
+      groups = Pattern.compile(getFileNameRegex()).matcher("").groupCount();
+    } catch (PatternSyntaxException e) {
+      collector.addFailure("Invalid file name regex: " + e.getDescription(), null)
+        .withConfigProperty(FILE_NAME_REGEX);
+      return;
+    }
+    try {
+      PathTemplate.expand(destinationPathTemplate, PathTemplate.fileTokens("file", "entry", 0L,
+                                                                           Collections.nCopies(groups, "group")));
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Use the tokens ${yyyy}, ${MM}, ${dd}, ${HH}, ${path}, ${name}, " +
+        "${entry}, or the number of a group of the file name regex.")
+        .withConfigProperty(DESTINATION_PATH_TEMPLATE);
+    }
+  }
+
+  private void validateTransfers(FailureCollector collector) {
+    List<TransferSpec> specs;
+    try {
+      specs = TransferSpec.parseList(transfers);
+    } catch (IllegalArgumentException e) {
+      collector.addFailure("Invalid transfers: " + e.getMessage(),
+                           "Transfers should be a JSON array of objects with a 'srcDirectory' and a 'destDirectory'.")
+        .withConfigProperty(TRANSFERS);
+      return;
+    }
+    // Listing snapshots, checksum manifests and packed containers are kept per destination directory
+    Set<String> destinations = new HashSet<>();
+    if (!containsMacro(DEST_DIRECTORY) && !Strings.isNullOrEmpty(getDestDirectory())) {
+      destinations.add(getDestDirectory());
+    }
+    for (TransferSpec spec : specs) {
+      if (spec == null || Strings.isNullOrEmpty(spec.getSrcDirectory())
+        || Strings.isNullOrEmpty(spec.getDestDirectory())) {
+        collector.addFailure("Every transfer must specify a source and a destination directory.", null)
+          .withConfigProperty(TRANSFERS);
+      } else if (!destinations.add(spec.getDestDirectory())) {
+        collector.addFailure("Destination directory " + spec.getDestDirectory() + " is used by more than one transfer.",
+                             "Use a separate destination directory for every transfer.")
+          .withConfigProperty(TRANSFERS);
+      }
+    }
   }
 
   /**
@@ -100,8 +548,29 @@ public class FTPCopyActionConfig extends FTPActionConfig {
     private String password;
     private String destDirectory;
     private String fileNameRegex;
+    private Integer maxConnections;
+    private Integer maxRetries;
+    private Integer failureThreshold;
+    private String checksumVerification;
+    private String checksumAlgorithm;
+    private String checksumManifest;
+    private String transferEngine;
     private String srcDirectory;
     private Boolean extractZipFiles;
+    private Long smallFileThreshold;
+    private Long containerSize;
+    private String compressionCodec;
+    private String postCopyAction;
+    private String archiveDirectory;
+    private String executionMode;
+    private Integer maxTasks;
+    private Boolean recursive;
+    private Long pruneQuietPeriod;
+    private String mirrors;
+    private String transfers;
+    private Long chunkSize;
+    private String appendMode;
+    private String destinationPathTemplate;
 
     private Builder() {
     }
@@ -136,6 +605,41 @@ public class FTPCopyActionConfig extends FTPActionConfig {
       return this;
     }
 
+    public Builder setMaxConnections(Integer maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    public Builder setMaxRetries(Integer maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    public Builder setFailureThreshold(Integer failureThreshold) {
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    public Builder setChecksumVerification(String checksumVerification) {
+      this.checksumVerification = checksumVerification;
+      return this;
+    }
+
+    public Builder setChecksumAlgorithm(String checksumAlgorithm) {
+      this.checksumAlgorithm = checksumAlgorithm;
+      return this;
+    }
+
+    public Builder setChecksumManifest(String checksumManifest) {
+      this.checksumManifest = checksumManifest;
+      return this;
+    }
+
+    public Builder setTransferEngine(String transferEngine) {
+      this.transferEngine = transferEngine;
+      return this;
+    }
+
     public Builder setSrcDirectory(String srcDirectory) {
       this.srcDirectory = srcDirectory;
       return this;
@@ -146,6 +650,76 @@ public class FTPCopyActionConfig extends FTPActionConfig {
       return this;
     }
 
+    public Builder setSmallFileThreshold(Long smallFileThreshold) {
+      this.smallFileThreshold = smallFileThreshold;
+      return this;
+    }
+
+    public Builder setContainerSize(Long containerSize) {
+      this.containerSize = containerSize;
+      return this;
+    }
+
+    public Builder setCompressionCodec(String compressionCodec) {
+      this.compressionCodec = compressionCodec;
+      return this;
+    }
+
+    public Builder setPostCopyAction(String postCopyAction) {
+      this.postCopyAction = postCopyAction;
+      return this;
+    }
+
+    public Builder setArchiveDirectory(String archiveDirectory) {
+      this.archiveDirectory = archiveDirectory;
+      return this;
+    }
+
+    public Builder setExecutionMode(String executionMode) {
+      this.executionMode = executionMode;
+      return this;
+    }
+
+    public Builder setMaxTasks(Integer maxTasks) {
+      this.maxTasks = maxTasks;
+      return this;
+    }
+
+    public Builder setRecursive(Boolean recursive) {
+      this.recursive = recursive;
+      return this;
+    }
+
+    public Builder setPruneQuietPeriod(Long pruneQuietPeriod) {
+      this.pruneQuietPeriod = pruneQuietPeriod;
+      return this;
+    }
+
+    public Builder setMirrors(String mirrors) {
+      this.mirrors = mirrors;
+      return this;
+    }
+
+    public Builder setTransfers(String transfers) {
+      this.transfers = transfers;
+      return this;
+    }
+
+    public Builder setChunkSize(Long chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    public Builder setAppendMode(String appendMode) {
+      this.appendMode = appendMode;
+      return this;
+    }
+
+    public Builder setDestinationPathTemplate(String destinationPathTemplate) {
+      this.destinationPathTemplate = destinationPathTemplate;
+      return this;
+    }
+
     public FTPCopyActionConfig build() {
       return new FTPCopyActionConfig(this);
     }
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.streaming.StreamingContext;
+import org.apache.spark.streaming.Time;
+import org.apache.spark.streaming.dstream.InputDStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Option;
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link InputDStream} that lists the source directory on the driver at the poll interval, and reads the new and
+ * grown files in parallel on the executors with the {@link FTPInputFormat}.
+ *
+ * The {@link FileTracker} is a field of the stream, so it is saved with the stream graph when the pipeline
+ * checkpoints, and files read before a restart are not read again. The tracker moves on as soon as a micro-batch is
+ * computed, before the batch runs, so the splits selected for each batch time are saved with it, and the batches
+ * pending at a restart read the same splits again instead of listing the directory.
+ */
+final class FTPInputDStream extends InputDStream<StructuredRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(FTPInputDStream.class);
+  private static final long serialVersionUID = 1L;
+
+  static final ClassTag<StructuredRecord> RECORD_TAG = ClassTag$.MODULE$.apply(StructuredRecord.class);
+
+  private final FTPStreamingSourceConfig config;
+  private final FileTracker tracker;
+  private final Map<Long, List<FTPInputSplit>> batchSplits;
+  private long lastPoll;
+
+  FTPInputDStream(StreamingContext ssc, FTPStreamingSourceConfig config) {
+    super(ssc, RECORD_TAG);
+    this.config = config;
+    this.tracker = new FileTracker();
+    this.batchSplits = new HashMap<>();
+  }
+
+  @Override
+  public void start() {
+    // Nothing to start, the directory is listed when the micro-batches are computed
+  }
+
+  @Override
+  public void stop() {
+    // Nothing to stop
+  }
+
+  @Override
+  public Option<RDD<StructuredRecord>> compute(Time validTime) {
+    JavaSparkContext sparkContext = new JavaSparkContext(context().sparkContext());
+    try {
+      // The configuration of the batch RDDs is saved with the checkpoints, so the password is passed in the
+      // credentials, again for every batch since the stream is not created again when it is recovered
+      FTPInputFormat.setPassword(config.getPassword());
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to set the password of the batch at %s: %s",
+                                               validTime, e.getMessage()), e);
+    }
+    Configuration conf = getConfiguration(sparkContext);
+    List<FTPInputSplit> splits;
+    synchronized (batchSplits) {
+      splits = batchSplits.get(validTime.milliseconds());
+    }
+    if (splits == null) {
+      if (lastPoll > 0 && validTime.milliseconds() - lastPoll < config.getPollIntervalMillis()) {
+        return Option.apply(sparkContext.<StructuredRecord>emptyRDD().rdd());
+      }
+      lastPoll = validTime.milliseconds();
+      splits = selectSplits(conf, validTime);
+    } else {
+      LOG.debug("Reading the {} splits selected for {} before the restart.", splits.size(), validTime);
+    }
+    if (splits.isEmpty()) {
+      return Option.apply(sparkContext.<StructuredRecord>emptyRDD().rdd());
+    }
+
+    try {
+      FTPInputFormat.setSplits(conf, splits);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to set the splits of the batch at %s: %s",
+                                               validTime, e.getMessage()), e);
+    }
+    return Option.apply(sparkContext.newAPIHadoopRDD(conf, FTPInputFormat.class, NullWritable.class,
+                                                     StructuredRecord.class).values().rdd());
+  }
+
+  @Override
+  public void clearMetadata(Time time) {
+    long oldest = time.milliseconds() - rememberDuration().milliseconds();
+    synchronized (batchSplits) {
+      Iterator<Long> batchTimes = batchSplits.keySet().iterator();
+      while (batchTimes.hasNext()) {
+        if (batchTimes.next() < oldest) {
+          batchTimes.remove();
+        }
+      }
+    }
+    super.clearMetadata(time);
+  }
+
+  /**
+   * Lists the source directory, moves the tracker on to the files listed, and saves the splits selected for the
+   * batch time.
+   */
+  private List<FTPInputSplit> selectSplits(Configuration conf, Time validTime) {
+    List<FTPInputSplit> splits;
+    try {
+      List<FTPFile> files = FTPInputFormat.listFiles(conf, UserGroupInformation.getCurrentUser().getCredentials());
+      splits = tracker.update(config.getSrcDirectory(), files, config.getMaxSplitSize(),
+                              new CompressionCodecFactory(conf));
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to list directory %s on %s: %s",
+                                               config.getSrcDirectory(), config.getHost(), e.getMessage()), e);
+    }
+    synchronized (batchSplits) {
+      batchSplits.put(validTime.milliseconds(), splits);
+    }
+    LOG.debug("Reading {} splits of {} files listed in {} at {}.", splits.size(), tracker.size(),
+              config.getSrcDirectory(), validTime);
+    return splits;
+  }
+
+  private Configuration getConfiguration(JavaSparkContext sparkContext) {
+    Configuration conf = new Configuration(sparkContext.hadoopConfiguration());
+    for (Map.Entry<String, String> entry : FTPInputFormat.getConfiguration(config).entrySet()) {
+      conf.set(entry.getKey(), entry.getValue());
+    }
+    return conf;
+  }
+}
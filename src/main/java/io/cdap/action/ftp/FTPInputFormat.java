@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.io.BaseEncoding;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.security.Credentials;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link InputFormat} reading the lines of files on an FTP server.
+ *
+ * Files are listed once when the splits are computed, unless the splits to read were set explicitly. Every file
+ * becomes one split, except uncompressed files larger than the maximum split size, which are split into byte ranges.
+ * Each task opens its own FTP connection and starts reading at the beginning of its range with the {@code REST}
+ * command.
+ *
+ * The password is not part of the Hadoop configuration, which is shown in the job history. It is passed as a secret
+ * key of the credentials of the job, or of the current user for jobs created before the password is set.
+ */
+public class FTPInputFormat extends InputFormat<NullWritable, StructuredRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(FTPInputFormat.class);
+
+  static final String HOST = "ftp.source.host";
+  static final String PORT = "ftp.source.port";
+  static final String USER_NAME = "ftp.source.user.name";
+  static final String SOURCE_DIRECTORY = "ftp.source.directory";
+  static final String FILE_NAME_REGEX = "ftp.source.file.name.regex";
+  static final String MAX_SPLIT_SIZE = "ftp.source.max.split.size";
+  static final String SPLITS = "ftp.source.splits";
+  private static final Text PASSWORD = new Text("ftp.source.password");
+
+  /**
+   * Returns the Hadoop configuration for reading the files selected by the given source config.
+   */
+  static Map<String, String> getConfiguration(FTPSourceConfig config) {
+    Map<String, String> conf = new HashMap<>();
+    conf.put(HOST, config.getHost());
+    conf.put(PORT, String.valueOf(config.getPort()));
+    conf.put(USER_NAME, config.getUserName());
+    conf.put(SOURCE_DIRECTORY, config.getSrcDirectory());
+    conf.put(FILE_NAME_REGEX, config.getFileNameRegex());
+    conf.put(MAX_SPLIT_SIZE, String.valueOf(config.getMaxSplitSize()));
+    return conf;
+  }
+
+  /**
+   * Adds the password to the credentials of the current user, from which the jobs it submits and the tasks running in
+   * this process read it.
+   */
+  static void setPassword(String password) throws IOException {
+    Credentials credentials = new Credentials();
+    credentials.addSecretKey(PASSWORD, password.getBytes(StandardCharsets.UTF_8));
+    UserGroupInformation.getCurrentUser().addCredentials(credentials);
+  }
+
+  /**
+   * Connects to the server with the password from the given credentials, or from the credentials of the current user
+   * if they do not hold it.
+   */
+  static FTPClient connect(Configuration conf, Credentials credentials) throws IOException {
+    byte[] password = credentials.getSecretKey(PASSWORD);
+    if (password == null) {
+      password = UserGroupInformation.getCurrentUser().getCredentials().getSecretKey(PASSWORD);
+    }
+    return FTPUtils.getFTPClient(conf.get(HOST), conf.getInt(PORT, 21), conf.get(USER_NAME),
+                                 password == null ? null : new String(password, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Sets the splits to read, instead of listing the source directory when the splits are computed.
+   */
+  static void setSplits(Configuration conf, List<FTPInputSplit> splits) throws IOException {
+    DataOutputBuffer out = new DataOutputBuffer();
+    out.writeInt(splits.size());
+    for (FTPInputSplit split : splits) {
+      split.write(out);
+    }
+    conf.set(SPLITS, BaseEncoding.base64().encode(out.getData(), 0, out.getLength()));
+  }
+
+  /**
+   * Lists the files of the source directory matching the file name regex.
+   */
+  static List<FTPFile> listFiles(Configuration conf, Credentials credentials) throws IOException {
+    String directory = conf.get(SOURCE_DIRECTORY);
+    String regex = conf.get(FILE_NAME_REGEX, ".*");
+    List<FTPFile> files = new ArrayList<>();
+    try (FTPSession session = new FTPSession(conf.get(HOST), connect(conf, credentials), new AtomicLong())) {
+      for (FTPFile file : session.getClient().listFiles(directory)) {
+        if (file.isFile() && file.getName().matches(regex)) {
+          files.add(file);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Returns the splits reading the given byte range of a file. Ranges of compressed files are never split.
+   */
+  static List<FTPInputSplit> split(String path, long start, long length, long maxSplitSize, boolean splittable) {
+    List<FTPInputSplit> splits = new ArrayList<>();
+    if (!splittable || length <= maxSplitSize) {
+      splits.add(new FTPInputSplit(path, start, length));
+      return splits;
+    }
+    for (long offset = 0; offset < length; offset += maxSplitSize) {
+      splits.add(new FTPInputSplit(path, start + offset, Math.min(maxSplitSize, length - offset)));
+    }
+    return splits;
+  }
+
+  @Override
+  public List<InputSplit> getSplits(JobContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+    List<InputSplit> splits = new ArrayList<>();
+    String encoded = conf.get(SPLITS);
+    if (encoded != null) {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(BaseEncoding.base64().decode(encoded)));
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        FTPInputSplit split = new FTPInputSplit();
+        split.readFields(in);
+        splits.add(split);
+      }
+      return splits;
+    }
+
+    String directory = conf.get(SOURCE_DIRECTORY);
+    long maxSplitSize = conf.getLong(MAX_SPLIT_SIZE, FTPSourceConfig.DEFAULT_MAX_SPLIT_SIZE);
+    CompressionCodecFactory codecFactory = new CompressionCodecFactory(conf);
+    List<FTPFile> files = listFiles(conf, context.getCredentials());
+    for (FTPFile file : files) {
+      if (file.getSize() == 0) {
+        continue;
+      }
+      boolean splittable = codecFactory.getCodec(new Path(file.getName())) == null;
+      splits.addAll(split(directory + "/" + file.getName(), 0, file.getSize(), maxSplitSize, splittable));
+    }
+    LOG.info("Reading {} files in {} splits from {}.", files.size(), splits.size(), directory);
+    return splits;
+  }
+
+  @Override
+  public RecordReader<NullWritable, StructuredRecord> createRecordReader(InputSplit split,
+                                                                          TaskAttemptContext context) {
+    return new FTPRecordReader();
+  }
+}
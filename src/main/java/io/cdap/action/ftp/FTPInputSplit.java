@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A byte range of a file on the FTP server. Splits are serializable so that the streaming source can save the splits
+ * of each micro-batch in its checkpoint.
+ */
+public class FTPInputSplit extends InputSplit implements Writable, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private String path;
+  private long start;
+  private long length;
+
+  public FTPInputSplit() {
+    // For deserialization
+  }
+
+  public FTPInputSplit(String path, long start, long length) {
+    this.path = path;
+    this.start = start;
+    this.length = length;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return new String[0];
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    WritableUtils.writeString(out, path);
+    out.writeLong(start);
+    out.writeLong(length);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    path = WritableUtils.readString(in);
+    start = in.readLong();
+    length = in.readLong();
+  }
+
+  @Override
+  public String toString() {
+    return path + ":" + start + "+" + length;
+  }
+}
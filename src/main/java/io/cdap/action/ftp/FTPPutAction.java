@@ -26,12 +26,21 @@ import org.apache.commons.net.ftp.FTPClient;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.annotation.Nullable;
 
 /**
  * An {@link Action} that will copy files from File System to FTP Server.
@@ -60,41 +69,20 @@ public class FTPPutAction extends Action {
     collector.getOrThrowException();
 
     Path source = new Path(config.getSrcPath());
-    FileSystem fileSystem = FileSystem.get(new Configuration());
+    FileSystem fileSystem = source.getFileSystem(new Configuration());
     if (!fileSystem.exists(source)) {
       throw new RuntimeException(String.format("Source Files don't exist at %s", source));
     }
 
     FTPClient ftp = null;
     try {
-      ftp = FTPUtils.getFTPClient(config.getHost(), config.getPort(), config.getUserName(), config.getPassword());
+      ftp = connect();
 
       // No easy way to check existence of directory, create directory if not present
       boolean dirExists = ftp.changeWorkingDirectory(config.getDestDirectory());
       if (!dirExists) {
         ftp.makeDirectory(config.getDestDirectory());
-        ftp.changeWorkingDirectory(config.getDestDirectory());
       }
-
-      // Filter out only the files to copy
-      FileStatus[] filesToCopy = fileSystem.listStatus(source, new PathFilter() {
-        @Override
-        public boolean accept(Path path) {
-          String fileName = path.getName();
-          return fileName.matches(config.getFileNameRegex());
-        }
-      });
-
-      for (FileStatus file : filesToCopy) {
-        Path filePath = file.getPath();
-        try (InputStream inputStream = fileSystem.open(filePath)) {
-          boolean success = ftp.storeFile(filePath.getName(), inputStream);
-          if (!success) {
-            LOG.error("Error copying file : {}", filePath);
-          }
-        }
-      }
-
       ftp.logout();
     } finally {
       if (ftp != null && ftp.isConnected()) {
@@ -105,5 +93,83 @@ public class FTPPutAction extends Action {
         }
       }
     }
+
+    // Filter out only the files to copy
+    FileStatus[] filesToCopy = fileSystem.listStatus(source, new PathFilter() {
+      @Override
+      public boolean accept(Path path) {
+        String fileName = path.getName();
+        return fileName.matches(config.getFileNameRegex());
+      }
+    });
+
+    TransferRunner<FileStatus> runner = new TransferRunner<>(Collections.singletonList(config.getHost()),
+                                                             config.getMaxConnections(), config.getMaxRetries(),
+                                                             config.getFailureThreshold(),
+                                                             TransferEngine.fromName(config.getTransferEngine()),
+                                                             host -> connect());
+    ChecksumVerifier verifier = ChecksumVerifier.create(config, fileSystem, null);
+    try {
+      runner.run(Arrays.asList(filesToCopy), file -> file.getPath().toString(),
+                 (session, file) -> putFile(session, file, fileSystem, verifier));
+    } finally {
+      if (verifier != null) {
+        verifier.log();
+        verifier.saveManifest();
+      }
+    }
+  }
+
+  private FTPClient connect() throws IOException {
+    return FTPUtils.getFTPClient(config.getHost(), config.getPort(), config.getUserName(), config.getPassword());
+  }
+
+  private void putFile(FTPSession session, FileStatus file, FileSystem fileSystem,
+                       @Nullable ChecksumVerifier verifier) throws IOException {
+    FTPClient ftp = session.getClient();
+    Path filePath = file.getPath();
+    String destination = config.getDestDirectory() + "/" + filePath.getName();
+    if (verifier == null && fileSystem instanceof LocalFileSystem && ftp instanceof ChannelFTPClient) {
+      LOG.debug("Uploading {} to {} without copying through the heap", filePath, destination);
+      boolean success;
+      try (FileChannel channel = FileChannel.open(((LocalFileSystem) fileSystem).pathToFile(filePath).toPath(),
+                                                  StandardOpenOption.READ)) {
+        success = ((ChannelFTPClient) ftp).storeFile(destination, channel, session::count);
+      }
+      if (!success) {
+        throw new IOException(String.format("Error copying file %s with reply %s.",
+                                            filePath, ftp.getReplyString()));
+      }
+      return;
+    }
+
+    MessageDigest digest = (verifier == null) ? null : verifier.newDigest();
+    InputStream fileStream = fileSystem.open(filePath);
+    try (InputStream inputStream = session.meter((digest == null) ? fileStream
+                                                   : new DigestInputStream(fileStream, digest))) {
+      boolean success = ftp.storeFile(destination, inputStream);
+      if (!success) {
+        throw new IOException(String.format("Error copying file %s with reply %s.",
+                                            filePath, ftp.getReplyString()));
+      }
+    }
+
+    if (digest != null) {
+      try {
+        verifier.verify(filePath.toString(), file.getLen(), file.getModificationTime(), digest, ftp, destination,
+                        extension -> readSidecar(fileSystem, filePath.suffix(extension)));
+      } catch (ChecksumMismatchException e) {
+        ftp.deleteFile(destination);
+        throw e;
+      }
+    }
+  }
+
+  @Nullable
+  private String readSidecar(FileSystem fileSystem, Path path) throws IOException {
+    if (!fileSystem.exists(path)) {
+      return null;
+    }
+    return ChecksumVerifier.readSidecar(fileSystem.open(path));
   }
 }
@@ -40,7 +40,9 @@ public class FTPPutActionConfig extends FTPActionConfig {
   }
 
   private FTPPutActionConfig(Builder builder) {
-    super(builder.host, builder.port, builder.userName, builder.password, builder.destDirectory, builder.fileNameRegex);
+    super(builder.host, builder.port, builder.userName, builder.password, builder.destDirectory, builder.fileNameRegex,
+          builder.maxConnections, builder.maxRetries, builder.failureThreshold, builder.checksumVerification,
+          builder.checksumAlgorithm, builder.checksumManifest, builder.transferEngine);
     srcPath = builder.srcPath;
   }
 
@@ -56,6 +58,13 @@ public class FTPPutActionConfig extends FTPActionConfig {
     builder.setPassword(copy.getPassword());
     builder.setDestDirectory(copy.getDestDirectory());
     builder.setFileNameRegex(copy.getFileNameRegex());
+    builder.setMaxConnections(copy.getMaxConnections());
+    builder.setMaxRetries(copy.getMaxRetries());
+    builder.setFailureThreshold(copy.getFailureThreshold());
+    builder.setChecksumVerification(copy.getChecksumVerification());
+    builder.setChecksumAlgorithm(copy.getChecksumAlgorithm());
+    builder.setChecksumManifest(copy.getChecksumManifest());
+    builder.setTransferEngine(copy.getTransferEngine());
     builder.setSrcPath(copy.getSrcPath());
     return builder;
   }
@@ -84,6 +93,13 @@ public class FTPPutActionConfig extends FTPActionConfig {
     private String password;
     private String destDirectory;
     private String fileNameRegex;
+    private Integer maxConnections;
+    private Integer maxRetries;
+    private Integer failureThreshold;
+    private String checksumVerification;
+    private String checksumAlgorithm;
+    private String checksumManifest;
+    private String transferEngine;
     private String srcPath;
 
     private Builder() {
@@ -119,6 +135,41 @@ public class FTPPutActionConfig extends FTPActionConfig {
       return this;
     }
 
+    public Builder setMaxConnections(Integer maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    public Builder setMaxRetries(Integer maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    public Builder setFailureThreshold(Integer failureThreshold) {
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    public Builder setChecksumVerification(String checksumVerification) {
+      this.checksumVerification = checksumVerification;
+      return this;
+    }
+
+    public Builder setChecksumAlgorithm(String checksumAlgorithm) {
+      this.checksumAlgorithm = checksumAlgorithm;
+      return this;
+    }
+
+    public Builder setChecksumManifest(String checksumManifest) {
+      this.checksumManifest = checksumManifest;
+      return this;
+    }
+
+    public Builder setTransferEngine(String transferEngine) {
+      this.transferEngine = transferEngine;
+      return this;
+    }
+
     public Builder setSrcPath(String srcPath) {
       this.srcPath = srcPath;
       return this;
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.lineage.field.EndPoint;
+import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
+import io.cdap.cdap.etl.api.lineage.field.FieldReadOperation;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.LineReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the lines of a {@link FTPInputSplit} over its own FTP connection.
+ *
+ * Like Hadoop's line record reader, a split not starting at the beginning of the file skips its first, partial line,
+ * and reads past its end to complete its last line.
+ */
+public class FTPRecordReader extends RecordReader<NullWritable, StructuredRecord> {
+  static final Schema SCHEMA = Schema.recordOf("ftpRecord",
+                                               Schema.Field.of("file", Schema.of(Schema.Type.STRING)),
+                                               Schema.Field.of("offset", Schema.of(Schema.Type.LONG)),
+                                               Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+
+  /**
+   * Returns the field lineage of a source reading these records from the dataset with the given reference name.
+   */
+  static List<FieldOperation> readOperations(String namespace, String referenceName) {
+    List<String> fields = new ArrayList<>();
+    for (Schema.Field field : SCHEMA.getFields()) {
+      fields.add(field.getName());
+    }
+    return Collections.singletonList(new FieldReadOperation("Read", "Read the lines of files on the FTP server.",
+                                                            EndPoint.of(namespace, referenceName), fields));
+  }
+
+  private FTPSession session;
+  private LineReader reader;
+  private String path;
+  private long start;
+  private long end;
+  private long pos;
+  private StructuredRecord record;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+    FTPInputSplit split = (FTPInputSplit) inputSplit;
+    path = split.getPath();
+    start = split.getStart();
+    end = start + split.getLength();
+
+    session = new FTPSession(conf.get(FTPInputFormat.HOST), FTPInputFormat.connect(conf, context.getCredentials()),
+                             new AtomicLong());
+    FTPClient ftp = session.getClient();
+    if (start > 0) {
+      ftp.setRestartOffset(start);
+    }
+    InputStream is = ftp.retrieveFileStream(path);
+    if (is == null) {
+      throw new IOException(String.format("Failed to open %s for reading with reply %s.",
+                                           path, ftp.getReplyString()));
+    }
+
+    CompressionCodec codec = new CompressionCodecFactory(conf).getCodec(new Path(path));
+    if (codec != null) {
+      // Compressed files are never split, read them up to the end of the decompressed content
+      is = codec.createInputStream(is);
+      end = Long.MAX_VALUE;
+    }
+    reader = new LineReader(is, conf);
+    pos = start;
+    if (start != 0) {
+      pos += reader.readLine(new Text(), 0, Integer.MAX_VALUE);
+    }
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (pos > end) {
+      return false;
+    }
+    Text line = new Text();
+    int size = reader.readLine(line);
+    if (size == 0) {
+      return false;
+    }
+    record = StructuredRecord.builder(SCHEMA)
+      .set("file", path)
+      .set("offset", pos)
+      .set("body", line.toString())
+      .build();
+    pos += size;
+    return true;
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public StructuredRecord getCurrentValue() {
+    return record;
+  }
+
+  @Override
+  public float getProgress() {
+    if (end == Long.MAX_VALUE || end == start) {
+      return 0.0f;
+    }
+    return Math.min(1.0f, (pos - start) / (float) (end - start));
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (reader != null) {
+        reader.close();
+      }
+    } finally {
+      if (session != null) {
+        // The transfer is usually aborted before the end of the file, so there is no pending command to complete
+        session.getClient().disconnect();
+      }
+    }
+  }
+}
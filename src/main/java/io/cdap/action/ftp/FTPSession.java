@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A logged in connection to an FTP server used by one transfer thread. Bytes read through {@link #meter(InputStream)}
+ * are added to the aggregate throughput counter of the owning {@link TransferRunner}.
+ */
+public final class FTPSession implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(FTPSession.class);
+
+  private final String host;
+  private final FTPClient client;
+  private final AtomicLong bytesTransferred;
+
+  FTPSession(String host, FTPClient client, AtomicLong bytesTransferred) {
+    this.host = host;
+    this.client = client;
+    this.bytesTransferred = bytesTransferred;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public FTPClient getClient() {
+    return client;
+  }
+
+  /**
+   * Wraps the given stream so that every byte read from it is counted towards the observed throughput.
+   */
+  public InputStream meter(InputStream inputStream) {
+    return new FilterInputStream(inputStream) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          bytesTransferred.incrementAndGet();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if (count > 0) {
+          bytesTransferred.addAndGet(count);
+        }
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Counts bytes that were transferred without going through a metered stream towards the observed throughput.
+   */
+  public void count(long bytes) {
+    bytesTransferred.addAndGet(bytes);
+  }
+
+  @Override
+  public void close() {
+    if (!client.isConnected()) {
+      return;
+    }
+    try {
+      client.logout();
+    } catch (Throwable t) {
+      LOG.debug("Failure to logout from the ftp server {}.", host, t);
+    }
+    try {
+      client.disconnect();
+    } catch (Throwable t) {
+      LOG.error("Failure to disconnect the ftp connection.", t);
+    }
+  }
+}
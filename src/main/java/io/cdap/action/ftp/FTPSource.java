@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.batch.Input;
+import io.cdap.cdap.api.data.batch.InputFormatProvider;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.dataset.lib.KeyValue;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.api.batch.BatchSourceContext;
+import org.apache.hadoop.io.NullWritable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link BatchSource} that reads the lines of files on an FTP server as records, without landing the files on the
+ * cluster first.
+ */
+@Plugin(type = BatchSource.PLUGIN_TYPE)
+@Name("FTPSource")
+@Description("Reads the lines of files on an FTP server as records, with each task reading over its own connection.")
+public class FTPSource extends BatchSource<NullWritable, StructuredRecord, StructuredRecord> {
+  private FTPSourceConfig config;
+
+  public FTPSource(FTPSourceConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
+    FailureCollector collector = pipelineConfigurer.getStageConfigurer().getFailureCollector();
+    config.validate(collector);
+    collector.getOrThrowException();
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(FTPRecordReader.SCHEMA);
+  }
+
+  @Override
+  public void prepareRun(BatchSourceContext context) throws IOException {
+    FailureCollector collector = context.getFailureCollector();
+    config.validate(collector);
+    collector.getOrThrowException();
+    context.record(FTPRecordReader.readOperations(context.getNamespace(), config.getReferenceName()));
+
+    FTPInputFormat.setPassword(config.getPassword());
+    Map<String, String> conf = FTPInputFormat.getConfiguration(config);
+    context.setInput(Input.of(config.getReferenceName(), new InputFormatProvider() {
+      @Override
+      public String getInputFormatClassName() {
+        return FTPInputFormat.class.getName();
+      }
+
+      @Override
+      public Map<String, String> getInputFormatConfiguration() {
+        return conf;
+      }
+    }));
+  }
+
+  @Override
+  public void transform(KeyValue<NullWritable, StructuredRecord> input, Emitter<StructuredRecord> emitter) {
+    emitter.emit(input.getValue());
+  }
+}
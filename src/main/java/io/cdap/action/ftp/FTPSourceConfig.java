@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Strings;
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Macro;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.plugin.PluginConfig;
+import io.cdap.cdap.etl.api.FailureCollector;
+
+import javax.annotation.Nullable;
+
+/**
+ * Configurations for {@link FTPSource}.
+ */
+public class FTPSourceConfig extends PluginConfig {
+  public static final String REFERENCE_NAME = "referenceName";
+  public static final String HOST = "host";
+  public static final String PORT = "port";
+  public static final String USER_NAME = "userName";
+  public static final String PASSWORD = "password";
+  public static final String SOURCE_DIRECTORY = "srcDirectory";
+  public static final String FILE_NAME_REGEX = "fileNameRegex";
+  public static final String MAX_SPLIT_SIZE = "maxSplitSize";
+  public static final long DEFAULT_MAX_SPLIT_SIZE = 128L * 1024 * 1024;
+
+  @Name(REFERENCE_NAME)
+  @Description("Name used to uniquely identify this source for lineage.")
+  private final String referenceName;
+
+  @Name(HOST)
+  @Description("Host name of the FTP server.")
+  @Macro
+  private final String host;
+
+  @Name(PORT)
+  @Description("Port on which FTP server is running. Defaults to 21.")
+  @Nullable
+  @Macro
+  private final Integer port;
+
+  @Name(USER_NAME)
+  @Description("Name of the user used to login to FTP server. Defaults to 'anonymous'.")
+  @Nullable
+  @Macro
+  private final String userName;
+
+  @Name(PASSWORD)
+  @Description("Password used to login to FTP server. Defaults to empty.")
+  @Nullable
+  @Macro
+  private final String password;
+
+  @Name(SOURCE_DIRECTORY)
+  @Description("Directory on the FTP server from which files are read.")
+  @Macro
+  private final String srcDirectory;
+
+  @Name(FILE_NAME_REGEX)
+  @Description("Regex to read only the file names that match. By default, all files will be read.")
+  @Nullable
+  @Macro
+  private final String fileNameRegex;
+
+  @Name(MAX_SPLIT_SIZE)
+  @Description("Maximum number of bytes of an uncompressed file read by a single task. Larger files are split " +
+    "into byte ranges read in parallel. Defaults to 128 MB.")
+  @Nullable
+  @Macro
+  private final Long maxSplitSize;
+
+  public FTPSourceConfig(String referenceName, String host, Integer port, String userName, String password,
+                         String srcDirectory, String fileNameRegex, Long maxSplitSize) {
+    this.referenceName = referenceName;
+    this.host = host;
+    this.port = port;
+    this.userName = userName;
+    this.password = password;
+    this.srcDirectory = srcDirectory;
+    this.fileNameRegex = fileNameRegex;
+    this.maxSplitSize = maxSplitSize;
+  }
+
+  private FTPSourceConfig(Builder builder) {
+    this(builder.referenceName, builder.host, builder.port, builder.userName, builder.password, builder.srcDirectory,
+         builder.fileNameRegex, builder.maxSplitSize);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static Builder builder(FTPSourceConfig copy) {
+    Builder builder = new Builder();
+    builder.setReferenceName(copy.getReferenceName());
+    builder.setHost(copy.getHost());
+    builder.setPort(copy.getPort());
+    builder.setUserName(copy.getUserName());
+    builder.setPassword(copy.getPassword());
+    builder.setSrcDirectory(copy.getSrcDirectory());
+    builder.setFileNameRegex(copy.getFileNameRegex());
+    builder.setMaxSplitSize(copy.getMaxSplitSize());
+    return builder;
+  }
+
+  public String getReferenceName() {
+    return referenceName;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return (port != null) ? port : 21;
+  }
+
+  public String getUserName() {
+    return (userName != null) ? userName : "anonymous";
+  }
+
+  public String getPassword() {
+    return (password != null) ? password : "";
+  }
+
+  public String getSrcDirectory() {
+    return srcDirectory;
+  }
+
+  public String getFileNameRegex() {
+    return (fileNameRegex != null) ? fileNameRegex : ".*";
+  }
+
+  public long getMaxSplitSize() {
+    return (maxSplitSize != null) ? maxSplitSize : DEFAULT_MAX_SPLIT_SIZE;
+  }
+
+  public void validate(FailureCollector collector) {
+    if (Strings.isNullOrEmpty(referenceName)) {
+      collector.addFailure("Reference name must be specified.", null).withConfigProperty(REFERENCE_NAME);
+    }
+
+    if (!containsMacro(HOST) && Strings.isNullOrEmpty(host)) {
+      collector.addFailure("Host must be specified.", null).withConfigProperty(HOST);
+    }
+
+    if (!containsMacro(PORT) && port != null && (port < 0 || port > 65535)) {
+      collector.addFailure("Invalid port: " + port, "Port should be in range [0;65535]")
+        .withConfigProperty(PORT);
+    }
+
+    if (!containsMacro(SOURCE_DIRECTORY) && Strings.isNullOrEmpty(srcDirectory)) {
+      collector.addFailure("Source directory must be specified.", null)
+        .withConfigProperty(SOURCE_DIRECTORY);
+    }
+
+    if (!containsMacro(MAX_SPLIT_SIZE) && maxSplitSize != null && maxSplitSize <= 0) {
+      collector.addFailure("Invalid maximum split size: " + maxSplitSize,
+                           "Maximum split size should be a positive number of bytes.")
+        .withConfigProperty(MAX_SPLIT_SIZE);
+    }
+  }
+
+  /**
+   * Builder for creating a {@link FTPSourceConfig}.
+   */
+  public static final class Builder {
+    private String referenceName;
+    private String host;
+    private Integer port;
+    private String userName;
+    private String password;
+    private String srcDirectory;
+    private String fileNameRegex;
+    private Long maxSplitSize;
+
+    private Builder() {
+    }
+
+    public Builder setReferenceName(String referenceName) {
+      this.referenceName = referenceName;
+      return this;
+    }
+
+    public Builder setHost(String host) {
+      this.host = host;
+      return this;
+    }
+
+    public Builder setPort(Integer port) {
+      this.port = port;
+      return this;
+    }
+
+    public Builder setUserName(String userName) {
+      this.userName = userName;
+      return this;
+    }
+
+    public Builder setPassword(String password) {
+      this.password = password;
+      return this;
+    }
+
+    public Builder setSrcDirectory(String srcDirectory) {
+      this.srcDirectory = srcDirectory;
+      return this;
+    }
+
+    public Builder setFileNameRegex(String fileNameRegex) {
+      this.fileNameRegex = fileNameRegex;
+      return this;
+    }
+
+    public Builder setMaxSplitSize(Long maxSplitSize) {
+      this.maxSplitSize = maxSplitSize;
+      return this;
+    }
+
+    public FTPSourceConfig build() {
+      return new FTPSourceConfig(this);
+    }
+  }
+}
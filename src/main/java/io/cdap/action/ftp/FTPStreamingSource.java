@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.streaming.StreamingContext;
+import io.cdap.cdap.etl.api.streaming.StreamingSource;
+import org.apache.spark.streaming.api.java.JavaDStream;
+
+/**
+ * A {@link StreamingSource} that polls a directory on an FTP server and reads the lines of new and grown files as
+ * records.
+ */
+@Plugin(type = StreamingSource.PLUGIN_TYPE)
+@Name("FTPStreamingSource")
+@Description("Polls a directory on an FTP server and reads the lines of new and grown files as records.")
+public class FTPStreamingSource extends StreamingSource<StructuredRecord> {
+  private final FTPStreamingSourceConfig config;
+
+  public FTPStreamingSource(FTPStreamingSourceConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
+    FailureCollector collector = pipelineConfigurer.getStageConfigurer().getFailureCollector();
+    config.validate(collector);
+    collector.getOrThrowException();
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(FTPRecordReader.SCHEMA);
+  }
+
+  @Override
+  public JavaDStream<StructuredRecord> getStream(StreamingContext context) throws Exception {
+    FailureCollector collector = context.getFailureCollector();
+    config.validate(collector);
+    collector.getOrThrowException();
+    context.record(FTPRecordReader.readOperations(context.getNamespace(), config.getReferenceName()));
+
+    FTPInputDStream stream = new FTPInputDStream(context.getSparkStreamingContext().ssc(), config);
+    return new JavaDStream<>(stream, FTPInputDStream.RECORD_TAG);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Macro;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.etl.api.FailureCollector;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Configurations for {@link FTPStreamingSource}.
+ */
+public class FTPStreamingSourceConfig extends FTPSourceConfig {
+  public static final String POLL_INTERVAL = "pollInterval";
+  public static final long DEFAULT_POLL_INTERVAL = 10;
+
+  @Name(POLL_INTERVAL)
+  @Description("Number of seconds between two listings of the source directory. New and grown files are read in " +
+    "the first micro-batch after they are listed. Defaults to 10 seconds.")
+  @Nullable
+  @Macro
+  private final Long pollInterval;
+
+  public FTPStreamingSourceConfig(String referenceName, String host, Integer port, String userName, String password,
+                                  String srcDirectory, String fileNameRegex, Long maxSplitSize, Long pollInterval) {
+    super(referenceName, host, port, userName, password, srcDirectory, fileNameRegex, maxSplitSize);
+    this.pollInterval = pollInterval;
+  }
+
+  public long getPollIntervalMillis() {
+    return TimeUnit.SECONDS.toMillis((pollInterval != null) ? pollInterval : DEFAULT_POLL_INTERVAL);
+  }
+
+  @Override
+  public void validate(FailureCollector collector) {
+    super.validate(collector);
+    if (!containsMacro(POLL_INTERVAL) && pollInterval != null && pollInterval < 0) {
+      collector.addFailure("Invalid poll interval: " + pollInterval, "Poll interval should not be negative.")
+        .withConfigProperty(POLL_INTERVAL);
+    }
+  }
+}
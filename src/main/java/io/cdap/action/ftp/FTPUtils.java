@@ -16,33 +16,47 @@
 
 package io.cdap.action.ftp;
 
+import com.google.common.base.Splitter;
+import com.google.common.net.HostAndPort;
+import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPClientConfig;
+import org.apache.commons.net.ftp.FTPConnectionClosedException;
 import org.apache.commons.net.ftp.FTPReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
  */
 public final class FTPUtils {
   private static final Logger LOG = LoggerFactory.getLogger(FTPUtils.class);
+  // Transfers fail once no data moved on their data connection for this long
+  static final int DATA_TIMEOUT_MILLIS = (int) TimeUnit.MINUTES.toMillis(5);
 
   private FTPUtils() {
     // util class
   }
 
   public static FTPClient getFTPClient(String host, int port, String user, String password) throws IOException {
-    FTPClient ftp = new FTPClient();
+    FTPClient ftp = new ChannelFTPClient();
     ftp.setControlKeepAliveTimeout(5);
+    ftp.setDataTimeout(DATA_TIMEOUT_MILLIS);
     // UNIX type server
     FTPClientConfig ftpConfig = new FTPClientConfig();
     // Set additional parameters required for the ftp
     // for example config.setServerTimeZoneId("Pacific/Pitcairn")
     ftp.configure(ftpConfig);
-    ftp.connect(host, port);
+    try {
+      ftp.connect(host, port);
+    } catch (FTPConnectionClosedException e) {
+      // commons-net closes the connection itself when the server greets with 421
+      throw new FTPConnectionRefusedException(String.format("FTP server %s and port %s closed the connection.",
+                                                            host, port), FTPReply.SERVICE_NOT_AVAILABLE, e);
+    }
     ftp.enterLocalPassiveMode();
     String replyString = ftp.getReplyString();
     LOG.info("Connected to server {} and port {} with reply from connect as {}.", host, port, replyString);
@@ -52,16 +66,57 @@ public final class FTPUtils {
 
     if (!FTPReply.isPositiveCompletion(replyCode)) {
       ftp.disconnect();
-      throw new RuntimeException(String.format("FTP server refused connection with code %s and reply %s.",
-                                               replyCode, replyString));
+      String message = String.format("FTP server refused connection with code %s and reply %s.",
+                                     replyCode, replyString);
+      throw new FTPConnectionRefusedException(message, replyCode);
     }
 
-    if (!ftp.login(user, password)) {
-      LOG.error("login command reply code {}, {}", ftp.getReplyCode(), ftp.getReplyString());
+    boolean loggedIn;
+    try {
+      loggedIn = ftp.login(user, password);
+    } catch (FTPConnectionClosedException e) {
+      throw new FTPConnectionRefusedException(String.format("FTP server %s and port %s closed the connection " +
+                                                              "during login.", host, port),
+                                              FTPReply.SERVICE_NOT_AVAILABLE, e);
+    }
+    if (!loggedIn) {
+      int loginReplyCode = ftp.getReplyCode();
+      LOG.error("login command reply code {}, {}", loginReplyCode, ftp.getReplyString());
       ftp.logout();
-      throw new RuntimeException(String.format("Login to the FTP server %s and port %s failed. " +
-                                                 "Please check user name and password.", host, port));
+      throw new FTPConnectionRefusedException(String.format("Login to the FTP server %s and port %s failed. " +
+                                                              "Please check user name and password.", host, port),
+                                              loginReplyCode);
+    }
+    // Files are transferred as they are, so that the copied bytes, restart offsets and checksums match the source
+    // whether files are streamed or moved between channels
+    if (!ftp.setFileType(FTP.BINARY_FILE_TYPE)) {
+      String message = String.format("FTP server %s and port %s refused the binary file type with reply %s.",
+                                     host, port, ftp.getReplyString());
+      ftp.disconnect();
+      throw new IOException(message);
     }
     return ftp;
   }
+
+  /**
+   * Connects to an address parsed from 'host' or 'host:port', such as an entry of a list of mirrors.
+   */
+  public static FTPClient getFTPClient(HostAndPort address, String user, String password) throws IOException {
+    return getFTPClient(address.getHostText(), address.getPort(), user, password);
+  }
+
+  /**
+   * Creates the given directory on the FTP server, including missing parent directories.
+   */
+  public static void makeDirectories(FTPClient ftp, String directory) throws IOException {
+    StringBuilder path = new StringBuilder(directory.startsWith("/") ? "/" : "");
+    for (String part : Splitter.on('/').omitEmptyStrings().split(directory)) {
+      if (path.length() > 0 && path.charAt(path.length() - 1) != '/') {
+        path.append('/');
+      }
+      path.append(part);
+      // Fails for directories that already exist, which is fine
+      ftp.makeDirectory(path.toString());
+    }
+  }
 }
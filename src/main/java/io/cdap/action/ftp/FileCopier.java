@@ -0,0 +1,357 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Copies single files from the FTP server to the destination directory, as configured by a
+ * {@link FTPCopyActionConfig}.
+ */
+final class FileCopier {
+  private static final Logger LOG = LoggerFactory.getLogger(FileCopier.class);
+  // Bytes of a source file downloaded again to check that it was appended to and not rewritten
+  static final int APPEND_OVERLAP = 64 * 1024;
+
+  private final FTPCopyActionConfig config;
+  private final FileSystem fileSystem;
+  private final Path destination;
+  private final SmallFilePacker packer;
+  private final DestinationCompression compression;
+  private final ChecksumVerifier verifier;
+  private final CompressionCodecFactory codecFactory;
+  private final LandedFile.Mode appendMode;
+  private final String pathTemplate;
+  private final Pattern fileNamePattern;
+
+  FileCopier(FTPCopyActionConfig config, FileSystem fileSystem, Path destination, @Nullable SmallFilePacker packer,
+             @Nullable DestinationCompression compression, @Nullable ChecksumVerifier verifier) {
+    this.config = config;
+    this.fileSystem = fileSystem;
+    this.destination = destination;
+    this.packer = packer;
+    this.compression = compression;
+    this.verifier = verifier;
+    this.codecFactory = new CompressionCodecFactory(fileSystem.getConf());
+    this.appendMode = LandedFile.Mode.fromName(config.getAppendMode());
+    this.pathTemplate = config.getDestinationPathTemplate();
+    this.fileNamePattern = Pattern.compile(config.getFileNameRegex());
+  }
+
+  void copyFile(FTPSession session, FTPFile file) throws IOException {
+    FTPClient ftp = session.getClient();
+    String source = config.getSrcDirectory() + "/" + file.getName();
+    LOG.info("Current file {}, source {}", file.getName(), source);
+    boolean extractZip = config.getExtractZipFiles() && file.getName().endsWith(".zip");
+    boolean pack = packer != null && !extractZip && file.getSize() < config.getSmallFileThreshold();
+
+    String destinationName = (pack || extractZip) ? null : getDestinationName(file, null);
+
+    if (destinationName != null && appendMode != LandedFile.Mode.NONE
+      && copyAppended(session, file, source, destinationName)) {
+      return;
+    }
+
+    if (destinationName != null && compression == null && config.getChunkSize() == null && verifier == null
+      && fileSystem instanceof LocalFileSystem && ftp instanceof ChannelFTPClient) {
+      retrieveLocal((ChannelFTPClient) ftp, session, source, destinationName);
+      return;
+    }
+
+    MessageDigest digest = (verifier == null) ? null : verifier.newDigest();
+    List<Path> written = new ArrayList<>();
+    byte[] content = null;
+    try (InputStream is = open(session, source, digest)) {
+      if (pack) {
+        LOG.debug("Packing {} into a container file", source);
+        content = ByteStreams.toByteArray(is);
+      } else if (extractZip) {
+        copyZip(is, file, written);
+      } else {
+        write(file.getName(), destinationName, is, written);
+      }
+      if (digest != null) {
+        // The checksum covers the whole file, even if the zip or codec stream did not read up to its end
+        ByteStreams.copy(is, ByteStreams.nullOutputStream());
+      }
+    }
+    completePendingCommand(ftp, source);
+
+    if (digest != null) {
+      try {
+        long modified = (file.getTimestamp() == null) ? 0L : file.getTimestamp().getTimeInMillis();
+        verifier.verify(source, file.getSize(), modified, digest, ftp, source,
+                        extension -> readSidecar(ftp, source + extension));
+      } catch (ChecksumMismatchException e) {
+        for (Path path : written) {
+          fileSystem.delete(path, false);
+        }
+        throw e;
+      }
+    }
+    if (content != null) {
+      // Only append once the download completed, so that a retried file is never packed twice
+      packer.append(source, content);
+    }
+  }
+
+  /**
+   * Downloads a file straight from the data connection into a file of the local destination directory, for files
+   * that are written unchanged.
+   */
+  private void retrieveLocal(ChannelFTPClient ftp, FTPSession session, String source,
+                             String name) throws IOException {
+    LocalFileSystem localFileSystem = (LocalFileSystem) fileSystem;
+    Path destinationPath = fileSystem.makeQualified(new Path(destination, name));
+    LOG.debug("Downloading {} to {} without copying through the heap", name, destinationPath);
+    fileSystem.mkdirs(destinationPath.getParent());
+    // The file is written around the checksum file system, so a checksum file of an earlier copy would be stale
+    fileSystem.delete(localFileSystem.getChecksumFile(destinationPath), false);
+    boolean success;
+    try (FileChannel channel = FileChannel.open(localFileSystem.pathToFile(destinationPath).toPath(),
+                                                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+      success = ftp.retrieveFile(source, channel, session::count);
+    }
+    if (!success) {
+      fileSystem.delete(destinationPath, false);
+      throw new IOException(String.format("Error downloading %s with reply %s.", source, ftp.getReplyString()));
+    }
+  }
+
+  /**
+   * Copies only the bytes appended to a source file since it was last copied, and returns whether it did. Returns
+   * {@code false} for files to copy in full, because nothing was landed yet, or because the source shrank or its
+   * content no longer matches the landed one.
+   */
+  private boolean copyAppended(FTPSession session, FTPFile file, String source,
+                               String destinationName) throws IOException {
+    LandedFile landed = new LandedFile(fileSystem, fileSystem.makeQualified(new Path(destination, destinationName)),
+                                       appendMode);
+    long length = landed.getLength();
+    if (length == 0 || file.getSize() < length) {
+      landed.clear();
+      return false;
+    }
+
+    // The end of the landed content is downloaded again, to check that the bytes before the new ones are unchanged
+    int overlap = (int) Math.min(APPEND_OVERLAP, length);
+    byte[] expected = landed.readTail(overlap);
+    byte[] actual = new byte[overlap];
+    FTPClient ftp = session.getClient();
+    boolean appended;
+    // Offsets are meaningful since clients use the binary file type
+    ftp.setRestartOffset(length - overlap);
+    try (InputStream is = session.meter(retrieveFileStream(ftp, source))) {
+      appended = ByteStreams.read(is, actual, 0, overlap) == overlap && Arrays.equals(expected, actual);
+      if (appended) {
+        // Nothing is landed, not even an empty delta file, if the source did not grow
+        int next = is.read();
+        if (next >= 0) {
+          try (OutputStream os = landed.append()) {
+            os.write(next);
+            LOG.debug("Appended {} new bytes of {}", ByteStreams.copy(is, os) + 1, source);
+          }
+        }
+      } else {
+        LOG.info("Source {} was rewritten since it was last copied, copying it in full.", source);
+        // The rest is read, so that the download completes normally
+        ByteStreams.copy(is, ByteStreams.nullOutputStream());
+      }
+    }
+    completePendingCommand(ftp, source);
+
+    if (!appended) {
+      landed.clear();
+    }
+    return appended;
+  }
+
+  private InputStream open(FTPSession session, String source, @Nullable MessageDigest digest) throws IOException {
+    InputStream is = session.meter(retrieveFileStream(session.getClient(), source));
+    return (digest == null) ? is : new DigestInputStream(is, digest);
+  }
+
+  private void copyZip(InputStream is, FTPFile file, List<Path> written) throws IOException {
+    // The zip stream is not closed, so that the remainder of the file can still be read for the checksum
+    ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is));
+    ZipEntry entry;
+    while ((entry = zis.getNextEntry()) != null) {
+      LOG.debug("Extracting {}", entry);
+      write(entry.getName(), getDestinationName(file, entry.getName()), zis, written);
+    }
+  }
+
+  /**
+   * Returns the path of a file or of a zip entry extracted from it relative to the destination directory, as laid
+   * out by the destination path template.
+   */
+  private String getDestinationName(FTPFile file, @Nullable String entry) throws IOException {
+    String name = file.getName();
+    if (pathTemplate == null) {
+      // Entries are extracted next to the zip file, which is in a subdirectory when copying recursively
+      return (entry == null) ? name : name.substring(0, name.lastIndexOf('/') + 1) + entry;
+    }
+    Matcher matcher = fileNamePattern.matcher(name.substring(name.lastIndexOf('/') + 1));
+    List<String> groups = new ArrayList<>();
+    if (matcher.matches()) {
+      for (int i = 1; i <= matcher.groupCount(); i++) {
+        groups.add(Strings.nullToEmpty(matcher.group(i)));
+      }
+    }
+    Long modified = (file.getTimestamp() == null) ? null : file.getTimestamp().getTimeInMillis();
+    String entryName = (entry == null) ? name.substring(name.lastIndexOf('/') + 1) : entry;
+    try {
+      return PathTemplate.expand(pathTemplate, PathTemplate.fileTokens(name, entryName, modified, groups));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(String.format("Failed to lay out %s with the destination path template: %s",
+                                          name, e.getMessage()), e);
+    }
+  }
+
+  @Nullable
+  private String readSidecar(FTPClient ftp, String path) throws IOException {
+    InputStream is = ftp.retrieveFileStream(path);
+    if (is == null) {
+      LOG.debug("No sidecar file {} with reply {}", path, ftp.getReplyString());
+      return null;
+    }
+    String content = ChecksumVerifier.readSidecar(is);
+    completePendingCommand(ftp, path);
+    return content;
+  }
+
+  /**
+   * Writes the content of a file or zip entry to the given path of the destination directory, compressing it when
+   * configured.
+   */
+  private void write(String name, String destinationName, InputStream is, List<Path> written) throws IOException {
+    if (config.getChunkSize() != null) {
+      writeChunks(name, destinationName, is, written);
+      return;
+    }
+    Path destinationPath = fileSystem.makeQualified(new Path(destination, (compression == null) ? destinationName
+      : compression.getDestinationName(destinationName)));
+    written.add(destinationPath);
+    LOG.debug("Downloading {} to {}", name, destinationPath.toString());
+    if (compression == null) {
+      try (OutputStream os = fileSystem.create(destinationPath)) {
+        ByteStreams.copy(is, os);
+      }
+      return;
+    }
+
+    // The decoded stream must not be closed, since it may wrap a zip stream with more entries to read
+    InputStream decoded = compression.decode(name, is);
+    try (OutputStream os = compression.encode(name, fileSystem.create(destinationPath))) {
+      ByteStreams.copy(decoded, os);
+    }
+  }
+
+  /**
+   * Writes the uncompressed content of a file or zip entry into line aligned chunk files named
+   * {@code <name>.part-<index>}, each compressed on its own when configured. Content fitting into a single chunk is
+   * written under the name of the file.
+   */
+  private void writeChunks(String name, String destinationName, InputStream is,
+                           List<Path> written) throws IOException {
+    CompressionCodec sourceCodec = codecFactory.getCodec(new Path(name));
+    String baseName = (sourceCodec == null) ? destinationName
+      : CompressionCodecFactory.removeSuffix(destinationName, sourceCodec.getDefaultExtension());
+    String extension = (compression == null) ? "" : compression.getCodec().getDefaultExtension();
+    Path target = fileSystem.makeQualified(new Path(destination, baseName + extension));
+    written.add(target);
+    String chunkPrefix = target.getName().substring(0, target.getName().length() - extension.length()) + ".part-";
+
+    // An earlier copy of the file, chunked or not, would be read along with the new chunks
+    fileSystem.mkdirs(target.getParent());
+    fileSystem.delete(target, false);
+    for (FileStatus status : fileSystem.listStatus(target.getParent(),
+                                                   path -> path.getName().startsWith(chunkPrefix))) {
+      fileSystem.delete(status.getPath(), false);
+    }
+
+    LOG.debug("Downloading {} into chunks of {} bytes", name, config.getChunkSize());
+    // The decoded stream must not be closed, since it may wrap a zip stream with more entries to read
+    InputStream decoded = (sourceCodec == null) ? is : sourceCodec.createInputStream(is);
+    List<Path> chunks = new ArrayList<>();
+    try (LineChunkOutputStream os = new LineChunkOutputStream(config.getChunkSize(), index -> {
+      Path chunk = new Path(target.getParent(), String.format("%s%05d%s", chunkPrefix, index, extension));
+      chunks.add(chunk);
+      written.add(chunk);
+      return create(chunk);
+    })) {
+      ByteStreams.copy(decoded, os);
+    }
+
+    if (chunks.isEmpty()) {
+      // Empty files are landed as they are without chunks
+      create(target).close();
+    } else if (chunks.size() == 1 && !fileSystem.rename(chunks.get(0), target)) {
+      throw new IOException(String.format("Failed to rename %s to %s.", chunks.get(0), target));
+    }
+  }
+
+  private OutputStream create(Path path) throws IOException {
+    OutputStream os = fileSystem.create(path);
+    return (compression == null) ? os : compression.getCodec().createOutputStream(os);
+  }
+
+  private void completePendingCommand(FTPClient ftp, String source) throws IOException {
+    if (!ftp.completePendingCommand()) {
+      throw new IOException(String.format("Error completing download of %s with reply %s.",
+                                          source, ftp.getReplyString()));
+    }
+  }
+
+  private InputStream retrieveFileStream(FTPClient ftp, String source) throws IOException {
+    InputStream is = ftp.retrieveFileStream(source);
+    if (is == null) {
+      throw new IOException(String.format("Failed to open %s for download with reply %s.",
+                                          source, ftp.getReplyString()));
+    }
+    return is;
+  }
+}
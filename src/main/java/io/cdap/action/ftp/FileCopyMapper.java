@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.net.HostAndPort;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the files of a {@link CopyListSplit} with a {@link FileCopier}, over concurrent connections of its own.
+ *
+ * Every file is written to the output with its outcome, {@link DistributedCopy#COPIED} or the failure, and the
+ * progress is reported through the {@link DistributedCopy.CopyCounter} counters and the task status.
+ */
+public class FileCopyMapper extends Mapper<NullWritable, CopyListSplit, Text, Text> {
+
+  @Override
+  protected void map(NullWritable key, CopyListSplit split, Context context) throws IOException,
+    InterruptedException {
+    Configuration conf = context.getConfiguration();
+    FTPCopyActionConfig config = DistributedCopy.getConfig(context);
+    Path destination = new Path(conf.get(DistributedCopy.DESTINATION));
+    FileSystem fileSystem = destination.getFileSystem(conf);
+    Path workDirectory = new Path(conf.get(DistributedCopy.WORK_DIRECTORY));
+    String taskId = context.getTaskAttemptID().getTaskID().toString();
+    int taskIndex = context.getTaskAttemptID().getTaskID().getId();
+    List<FTPFile> files = split.getFiles();
+
+    DestinationCompression compression = DestinationCompression.of(conf, config.getCompressionCodec());
+    // Containers are named after the run and the task, so that a retried task attempt or a rerun of the action
+    // replaces the containers written before
+    SmallFilePacker packer = (config.getSmallFileThreshold() == null) ? null :
+      new SmallFilePacker(conf, destination, config.getContainerSize(),
+                          (compression == null) ? null : compression.getCodec(),
+                          String.format("packed-%d-m%05d-", conf.getLong(DistributedCopy.LOGICAL_START_TIME, 0L),
+                                        taskIndex));
+    ChecksumVerifier verifier = ChecksumVerifier.create(config, fileSystem,
+                                                        new Path(destination, FTPCopyAction.CHECKSUM_MANIFEST));
+    TransferRunner<FTPFile> runner = new TransferRunner<>(
+      config.getHosts(), conf.getInt(DistributedCopy.TASK_CONNECTIONS, 1), config.getMaxRetries(),
+      Integer.MAX_VALUE, TransferEngine.fromName(config.getTransferEngine()),
+      host -> FTPUtils.getFTPClient(HostAndPort.fromString(host).withDefaultPort(config.getPort()),
+                                    config.getUserName(), config.getPassword()));
+    int[] copied = new int[1];
+    TransferReport report;
+    try {
+      FileCopier copier = new FileCopier(config, fileSystem, destination, packer, compression, verifier);
+      report = runner.run(files, FTPFile::getName, (session, file) -> {
+        copier.copyFile(session, file);
+        // The task context is not thread safe
+        synchronized (context) {
+          write(context, file.getName(), DistributedCopy.COPIED);
+          context.getCounter(DistributedCopy.CopyCounter.FILES_COPIED).increment(1);
+          context.getCounter(DistributedCopy.CopyCounter.BYTES_COPIED).increment(file.getSize());
+          context.setStatus(String.format("Copied %d of %d files", ++copied[0], files.size()));
+        }
+      });
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    } finally {
+      if (packer != null) {
+        packer.close();
+      }
+      if (verifier != null) {
+        verifier.log();
+        verifier.saveManifest(new Path(new Path(workDirectory, DistributedCopy.CHECKSUMS), taskId));
+      }
+    }
+
+    report.log();
+    for (Map.Entry<String, String> entry : report.getFailed().entrySet()) {
+      write(context, entry.getKey(), entry.getValue());
+    }
+    context.getCounter(DistributedCopy.CopyCounter.FILES_FAILED).increment(report.getFailed().size());
+  }
+
+  private void write(Context context, String file, String outcome) throws IOException {
+    try {
+      context.write(new Text(file), new Text(outcome));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing the outcome of " + file);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tracks the size and modification time of the files already read from a directory, to read only new and grown
+ * files on every listing.
+ *
+ * A file that grew is read from the last byte read before, instead of from the end of that content: the record
+ * reader skips the remainder of the line its range starts in, which is then the line ending at that byte. A file
+ * that shrank or changed without growing was rewritten and is read again from the beginning.
+ */
+final class FileTracker implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final Map<String, FileState> seen = new HashMap<>();
+
+  /**
+   * Returns the splits reading the new content of the listed files, and remembers the listing. Files that are not
+   * listed anymore are forgotten.
+   */
+  List<FTPInputSplit> update(String directory, List<FTPFile> files, long maxSplitSize,
+                             CompressionCodecFactory codecFactory) {
+    Map<String, FileState> listed = new HashMap<>();
+    List<FTPInputSplit> splits = new ArrayList<>();
+    for (FTPFile file : files) {
+      String path = directory + "/" + file.getName();
+      FileState state = new FileState(file.getSize(), file.getTimestamp() == null ? 0
+        : file.getTimestamp().getTimeInMillis());
+      listed.put(path, state);
+
+      FileState previous = seen.get(path);
+      if (state.equals(previous) || state.size == 0) {
+        continue;
+      }
+      boolean splittable = codecFactory.getCodec(new Path(file.getName())) == null;
+      long start = 0;
+      if (previous != null && splittable && previous.size > 0 && state.size > previous.size) {
+        start = previous.size - 1;
+      }
+      splits.addAll(FTPInputFormat.split(path, start, state.size - start, maxSplitSize, splittable));
+    }
+    seen.clear();
+    seen.putAll(listed);
+    return splits;
+  }
+
+  int size() {
+    return seen.size();
+  }
+
+  /**
+   * Size and modification time of a file.
+   */
+  private static final class FileState implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long modified;
+
+    private FileState(long size, long modified) {
+      this.size = size;
+      this.modified = modified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FileState that = (FileState) o;
+      return size == that.size && modified == that.modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(size, modified);
+    }
+  }
+}
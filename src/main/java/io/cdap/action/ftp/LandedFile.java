@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.fs.ChecksumFileSystem;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The content of a source file landed in the destination directory so far, used to copy only the bytes appended to
+ * the source since. Depending on the {@link Mode}, the content is a single file growing by appends, or the file
+ * followed by delta files named {@code <name>.delta-<index>}.
+ */
+final class LandedFile {
+  private static final String DELTA_SUFFIX = ".delta-";
+
+  /**
+   * How the bytes appended to a source file are landed.
+   */
+  enum Mode {
+    NONE, APPEND, DELTA;
+
+    @Nullable
+    static Mode fromName(String name) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(name)) {
+          return mode;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final FileSystem fileSystem;
+  private final Path path;
+  private final Mode mode;
+  // The file followed by its delta files in order, or empty if nothing was landed yet
+  private final List<FileStatus> parts = new ArrayList<>();
+
+  LandedFile(FileSystem fileSystem, Path path, Mode mode) throws IOException {
+    this.fileSystem = fileSystem;
+    this.path = path;
+    this.mode = mode;
+    if (!fileSystem.exists(path)) {
+      return;
+    }
+    parts.add(fileSystem.getFileStatus(path));
+    if (mode == Mode.DELTA) {
+      List<FileStatus> deltas = new ArrayList<>(Arrays.asList(listDeltas()));
+      deltas.sort(Comparator.comparingInt(this::getIndex));
+      parts.addAll(deltas);
+    }
+  }
+
+  /**
+   * Returns the number of bytes landed so far.
+   */
+  long getLength() {
+    long length = 0;
+    for (FileStatus part : parts) {
+      length += part.getLen();
+    }
+    return length;
+  }
+
+  /**
+   * Reads the last bytes landed, which may span several delta files.
+   */
+  byte[] readTail(int length) throws IOException {
+    byte[] tail = new byte[length];
+    int remaining = length;
+    for (int i = parts.size() - 1; i >= 0 && remaining > 0; i--) {
+      FileStatus part = parts.get(i);
+      int read = (int) Math.min(remaining, part.getLen());
+      try (FSDataInputStream is = fileSystem.open(part.getPath())) {
+        is.readFully(part.getLen() - read, tail, remaining - read, read);
+      }
+      remaining -= read;
+    }
+    if (remaining > 0) {
+      throw new IOException(String.format("Only %d of %d bytes were landed for %s.", length - remaining, length, path));
+    }
+    return tail;
+  }
+
+  /**
+   * Opens a stream for landing the bytes following the ones landed so far.
+   */
+  OutputStream append() throws IOException {
+    if (mode == Mode.DELTA) {
+      int index = parts.size() == 1 ? 1 : getIndex(parts.get(parts.size() - 1)) + 1;
+      return fileSystem.create(new Path(path.getParent(), String.format("%s%s%05d", path.getName(),
+                                                                        DELTA_SUFFIX, index)), false);
+    }
+    if (fileSystem instanceof ChecksumFileSystem) {
+      // Checksum file systems don't support appends, so the file is appended to around its now stale checksum file
+      ChecksumFileSystem checksumFileSystem = (ChecksumFileSystem) fileSystem;
+      fileSystem.delete(checksumFileSystem.getChecksumFile(path), false);
+      return checksumFileSystem.getRawFileSystem().append(path);
+    }
+    return fileSystem.append(path);
+  }
+
+  /**
+   * Deletes the delta files, before the source file is copied in full again.
+   */
+  void clear() throws IOException {
+    for (FileStatus delta : listDeltas()) {
+      fileSystem.delete(delta.getPath(), false);
+    }
+  }
+
+  private FileStatus[] listDeltas() throws IOException {
+    String prefix = path.getName() + DELTA_SUFFIX;
+    if (!fileSystem.exists(path.getParent())) {
+      return new FileStatus[0];
+    }
+    return fileSystem.listStatus(path.getParent(), delta -> delta.getName().startsWith(prefix)
+      && delta.getName().substring(prefix.length()).matches("[0-9]+"));
+  }
+
+  private int getIndex(FileStatus delta) {
+    String name = delta.getPath().getName();
+    return Integer.parseInt(name.substring(name.lastIndexOf(DELTA_SUFFIX) + DELTA_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} that splits what is written into a sequence of chunks. A chunk is ended at the first line
+ * break after it reached the chunk size, so that every chunk holds whole lines and can be read by its own task.
+ * Chunks are only created once there is something to write into them.
+ */
+final class LineChunkOutputStream extends OutputStream {
+
+  /**
+   * Opens the stream of a new chunk.
+   */
+  interface ChunkFactory {
+    OutputStream create(int index) throws IOException;
+  }
+
+  private final long chunkSize;
+  private final ChunkFactory factory;
+  private OutputStream current;
+  private long currentSize;
+  private int chunks;
+
+  LineChunkOutputStream(long chunkSize, ChunkFactory factory) {
+    this.chunkSize = chunkSize;
+    this.factory = factory;
+  }
+
+  /**
+   * Returns the number of chunks created so far.
+   */
+  int getChunks() {
+    return chunks;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (current == null) {
+        current = factory.create(chunks++);
+        currentSize = 0;
+      }
+      int count;
+      if (currentSize < chunkSize) {
+        count = (int) Math.min(len, chunkSize - currentSize);
+      } else {
+        // The chunk is full, only complete its last line
+        count = len;
+        for (int i = off; i < off + len; i++) {
+          if (b[i] == '\n') {
+            count = i - off + 1;
+            break;
+          }
+        }
+      }
+      current.write(b, off, count);
+      currentSize += count;
+      off += count;
+      len -= count;
+      if (currentSize >= chunkSize && b[off - 1] == '\n') {
+        current.close();
+        current = null;
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (current != null) {
+      current.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (current != null) {
+      current.close();
+      current = null;
+    }
+  }
+}
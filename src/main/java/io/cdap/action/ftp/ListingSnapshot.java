@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Fingerprints of the directories listed by previous runs, persisted between runs as a tab separated file with the
+ * directory path relative to the source directory, its modification time, file count, a hash of its files and the
+ * newest modification time found in its subtree on every line.
+ *
+ * Which files were copied from the directories depends on the file name regex, so the first line of the file holds
+ * the regex the snapshot was taken with, and a snapshot taken with another regex is not used.
+ */
+final class ListingSnapshot {
+  private static final Logger LOG = LoggerFactory.getLogger(ListingSnapshot.class);
+  private static final String FILE_NAME_REGEX = "#fileNameRegex";
+  static final String ROOT = ".";
+
+  private final String fileNameRegex;
+  private final TreeMap<String, Fingerprint> fingerprints = new TreeMap<>();
+
+  /**
+   * @param fileNameRegex regex of the files copied from the listed directories, or null if unknown
+   */
+  ListingSnapshot(@Nullable String fileNameRegex) {
+    this.fileNameRegex = fileNameRegex;
+  }
+
+  /**
+   * Loads the snapshot at the given path, or returns an empty snapshot if there is none.
+   */
+  static ListingSnapshot load(FileSystem fileSystem, Path path) throws IOException {
+    List<List<String>> rows = TabSeparatedFile.read(fileSystem, path);
+    if (rows.isEmpty()) {
+      return new ListingSnapshot(null);
+    }
+    List<String> header = rows.get(0);
+    // A tab in the regex splits it into several fields
+    ListingSnapshot snapshot = new ListingSnapshot(FILE_NAME_REGEX.equals(header.get(0)) ?
+                                                     Joiner.on('\t').join(header.subList(1, header.size())) : null);
+    for (List<String> fields : rows.subList(1, rows.size())) {
+      if (fields.size() != 5) {
+        LOG.warn("Ignoring malformed line in listing snapshot {}: {}", path, fields);
+        continue;
+      }
+      snapshot.fingerprints.put(fields.get(0), new Fingerprint(Long.parseLong(fields.get(1)),
+                                                               Integer.parseInt(fields.get(2)), fields.get(3),
+                                                               Long.parseLong(fields.get(4))));
+    }
+    LOG.debug("Loaded {} directory fingerprints from listing snapshot {}.", snapshot.fingerprints.size(), path);
+    return snapshot;
+  }
+
+  /**
+   * Returns the regex of the files copied from the listed directories, or null if unknown.
+   */
+  @Nullable
+  String getFileNameRegex() {
+    return fileNameRegex;
+  }
+
+  @Nullable
+  Fingerprint get(String directory) {
+    return fingerprints.get(directory);
+  }
+
+  void put(String directory, Fingerprint fingerprint) {
+    fingerprints.put(directory, fingerprint);
+  }
+
+  /**
+   * Copies the fingerprints of a directory and all its subdirectories from another snapshot.
+   */
+  void copySubtree(ListingSnapshot other, String directory) {
+    Fingerprint fingerprint = other.fingerprints.get(directory);
+    if (fingerprint != null) {
+      fingerprints.put(directory, fingerprint);
+    }
+    // Paths sharing the prefix are contiguous in sort order
+    String prefix = directory + "/";
+    for (Map.Entry<String, Fingerprint> entry : other.fingerprints.tailMap(prefix).entrySet()) {
+      if (!entry.getKey().startsWith(prefix)) {
+        break;
+      }
+      fingerprints.put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Forgets the directory containing the given file, so that its files are copied again by the next run, and marks
+   * the directories above it as not settled, so that they are listed again.
+   *
+   * @param file path of the file relative to the source directory
+   */
+  void invalidate(String file) {
+    int index = file.lastIndexOf('/');
+    String directory = (index < 0) ? ROOT : file.substring(0, index);
+    fingerprints.remove(directory);
+    while (!ROOT.equals(directory)) {
+      index = directory.lastIndexOf('/');
+      directory = (index < 0) ? ROOT : directory.substring(0, index);
+      Fingerprint fingerprint = fingerprints.get(directory);
+      if (fingerprint != null) {
+        fingerprints.put(directory, new Fingerprint(fingerprint.modified, fingerprint.files, fingerprint.hash,
+                                                    Long.MAX_VALUE));
+      }
+    }
+  }
+
+  int size() {
+    return fingerprints.size();
+  }
+
+  /**
+   * Writes the snapshot, replacing the previous version.
+   */
+  void save(FileSystem fileSystem, Path path) throws IOException {
+    Iterable<List<?>> rows = Iterables.transform(fingerprints.entrySet(), entry -> Arrays.asList(
+      entry.getKey(), entry.getValue().modified, entry.getValue().files, entry.getValue().hash,
+      entry.getValue().newest));
+    TabSeparatedFile.write(fileSystem, path, Iterables.concat(
+      Collections.singletonList(Arrays.asList(FILE_NAME_REGEX, fileNameRegex)), rows));
+  }
+
+  /**
+   * The fingerprint of a directory.
+   */
+  static final class Fingerprint {
+    private final long modified;
+    private final int files;
+    private final String hash;
+    private final long newest;
+
+    /**
+     * @param modified modification time of the directory, as listed in its parent directory
+     * @param files number of files in the directory
+     * @param hash hash of the names, sizes and modification times of the files in the directory
+     * @param newest newest modification time of the directory and all entries in its subtree
+     */
+    Fingerprint(long modified, int files, String hash, long newest) {
+      this.modified = modified;
+      this.files = files;
+      this.hash = hash;
+      this.newest = newest;
+    }
+
+    long getModified() {
+      return modified;
+    }
+
+    long getNewest() {
+      return newest;
+    }
+
+    /**
+     * Returns whether the directory has the same files as when this fingerprint was taken.
+     */
+    boolean hasSameFiles(int files, String hash) {
+      return this.files == files && this.hash.equals(hash);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Expands {@code ${token}} placeholders in configured paths.
+ */
+final class PathTemplate {
+  private static final Pattern TOKEN = Pattern.compile("\\$\\{([^}]+)}");
+  private static final String[] DATE_TOKENS = {"yyyy", "MM", "dd", "HH"};
+
+  private PathTemplate() {
+    // util class
+  }
+
+  /**
+   * Replaces every {@code ${token}} in the template with its value.
+   *
+   * @throws IllegalArgumentException if the template contains a token without value
+   */
+  static String expand(String template, Map<String, String> values) {
+    Matcher matcher = TOKEN.matcher(template);
+    StringBuffer result = new StringBuffer();
+    while (matcher.find()) {
+      String value = values.get(matcher.group(1));
+      if (value == null) {
+        throw new IllegalArgumentException(String.format("Unknown token '%s' in path '%s'.",
+                                                         matcher.group(), template));
+      }
+      matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+
+  /**
+   * Returns the tokens laying out a copied file in the destination directory: {@code path}, its path relative to the
+   * source directory, {@code name}, its file name, {@code entry}, the name of the zip entry extracted from it or else
+   * its file name, the date tokens of its modification time if known, and the groups captured from its file name by
+   * number.
+   */
+  static Map<String, String> fileTokens(String path, String entry, @Nullable Long modifiedMillis,
+                                        List<String> groups) {
+    Map<String, String> tokens = (modifiedMillis == null) ? new HashMap<>() : dateTokens(modifiedMillis);
+    tokens.put("path", path);
+    tokens.put("name", path.substring(path.lastIndexOf('/') + 1));
+    tokens.put("entry", entry);
+    for (int i = 0; i < groups.size(); i++) {
+      tokens.put(String.valueOf(i + 1), groups.get(i));
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the {@code yyyy}, {@code MM}, {@code dd} and {@code HH} tokens of the given time in UTC.
+   */
+  static Map<String, String> dateTokens(long timeMillis) {
+    Map<String, String> tokens = new HashMap<>();
+    for (String token : DATE_TOKENS) {
+      SimpleDateFormat format = new SimpleDateFormat(token);
+      format.setTimeZone(TimeZone.getTimeZone("UTC"));
+      tokens.put(token, format.format(new Date(timeMillis)));
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.io.compress.zlib.ZlibFactory;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Packs small files into rolling SequenceFile containers in the destination directory. Every file becomes one
+ * record keyed by its source path, with the file content as value. A new container is started once the current one
+ * reached the target size.
+ */
+final class SmallFilePacker implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SmallFilePacker.class);
+  static final String CONTAINER_EXTENSION = ".seq";
+
+  private final Configuration conf;
+  private final Path destination;
+  private final long containerSize;
+  private final CompressionCodec codec;
+  private final String prefix;
+  private SequenceFile.Writer writer;
+  private Path containerPath;
+  private int containers;
+  private int records;
+
+  /**
+   * Creates a packer writing block compressed containers, using the given codec or the default codec if none given,
+   * or if the codec is gzip and the native zlib library, which SequenceFile needs for gzip, is not loaded.
+   * Containers are named after the logical start time of the run, so that a rerun replaces its own containers.
+   */
+  SmallFilePacker(Configuration conf, Path destination, long containerSize, @Nullable CompressionCodec codec,
+                  long logicalStartTime) {
+    this(conf, destination, containerSize, codec, "packed-" + logicalStartTime + "-");
+  }
+
+  /**
+   * Creates a packer naming its containers with the given prefix, followed by the container number. Containers
+   * with the same prefix left by an earlier attempt are replaced.
+   */
+  SmallFilePacker(Configuration conf, Path destination, long containerSize, @Nullable CompressionCodec codec,
+                  String prefix) {
+    this.conf = conf;
+    this.destination = destination;
+    this.containerSize = containerSize;
+    if (codec instanceof GzipCodec && !ZlibFactory.isNativeZlibLoaded(conf)) {
+      LOG.warn("Compressing containers with the default codec, gzip needs the native Hadoop libraries.");
+      codec = null;
+    }
+    this.codec = (codec == null) ? ReflectionUtils.newInstance(DefaultCodec.class, conf) : codec;
+    this.prefix = prefix;
+  }
+
+  /**
+   * Appends a file to the current container, starting a new container when needed.
+   */
+  synchronized void append(String source, byte[] content) throws IOException {
+    if (writer == null) {
+      if (containers == 0) {
+        deleteContainers();
+      }
+      containerPath = new Path(destination, String.format("%s%05d%s", prefix, containers++, CONTAINER_EXTENSION));
+      writer = SequenceFile.createWriter(
+        conf, SequenceFile.Writer.file(containerPath), SequenceFile.Writer.keyClass(Text.class),
+        SequenceFile.Writer.valueClass(BytesWritable.class),
+        SequenceFile.Writer.compression(SequenceFile.CompressionType.BLOCK, codec));
+    }
+    writer.append(new Text(source), new BytesWritable(content));
+    records++;
+    if (writer.getLength() >= containerSize) {
+      closeContainer();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closeContainer();
+  }
+
+  /**
+   * Deletes the containers written with the same prefix by an earlier attempt, which may have written more of them.
+   */
+  private void deleteContainers() throws IOException {
+    FileSystem fileSystem = destination.getFileSystem(conf);
+    if (!fileSystem.exists(destination)) {
+      return;
+    }
+    Pattern name = Pattern.compile(Pattern.quote(prefix) + "[0-9]{5}" + Pattern.quote(CONTAINER_EXTENSION));
+    for (FileStatus container : fileSystem.listStatus(destination, path -> name.matcher(path.getName()).matches())) {
+      LOG.debug("Deleting container {} of an earlier attempt", container.getPath());
+      fileSystem.delete(container.getPath(), false);
+    }
+  }
+
+  private void closeContainer() throws IOException {
+    if (writer == null) {
+      return;
+    }
+    writer.close();
+    writer = null;
+    LOG.info("Packed {} files into {}.", records, containerPath);
+    records = 0;
+  }
+}
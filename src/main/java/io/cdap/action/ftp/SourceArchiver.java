@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Deletes or archives source files on the FTP server once they were copied, so that the source directory does not
+ * grow without bound. Commands are issued in batches, each batch over a single session, and batches run
+ * concurrently through a {@link TransferRunner}.
+ */
+final class SourceArchiver {
+  private static final Logger LOG = LoggerFactory.getLogger(SourceArchiver.class);
+  static final int BATCH_SIZE = 100;
+
+  /**
+   * What happens to source files after they were copied.
+   */
+  enum Mode {
+    NONE, DELETE, ARCHIVE;
+
+    @Nullable
+    static Mode fromName(String name) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(name)) {
+          return mode;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final FTPCopyActionConfig config;
+  private final TransferRunner.Connector connector;
+  private final Mode mode;
+  private final String archiveDirectory;
+  private final AtomicInteger failed = new AtomicInteger();
+
+  /**
+   * @param archiveDirectory directory files are moved to in {@link Mode#ARCHIVE} mode, with all tokens expanded
+   */
+  SourceArchiver(FTPCopyActionConfig config, TransferRunner.Connector connector, Mode mode,
+                 @Nullable String archiveDirectory) {
+    this.config = config;
+    this.connector = connector;
+    this.mode = mode;
+    this.archiveDirectory = archiveDirectory;
+  }
+
+  /**
+   * Deletes or archives the given source files. Failures are logged but don't fail the run, since the files were
+   * already copied successfully.
+   *
+   * @param sources paths of the source files on the FTP server, relative to {@code srcDirectory}
+   */
+  void run(List<String> sources) throws Exception {
+    if (mode == Mode.NONE || sources.isEmpty()) {
+      return;
+    }
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    if (mode == Mode.ARCHIVE) {
+      createArchiveDirectories(sources);
+    }
+
+    List<Batch> batches = new ArrayList<>();
+    for (List<String> partition : Lists.partition(sources, BATCH_SIZE)) {
+      batches.add(new Batch(partition));
+    }
+    TransferRunner<Batch> runner = new TransferRunner<>(Collections.singletonList(config.getHost()),
+                                                        config.getMaxConnections(),
+                                                        config.getMaxRetries(), Integer.MAX_VALUE,
+                                                        TransferEngine.fromName(config.getTransferEngine()), connector);
+    runner.run(batches, batch -> batch.files.get(0) + " and following", this::process);
+    LOG.info("{} {} of {} source files in {} batches in {} ms.", mode == Mode.DELETE ? "Deleted" : "Archived",
+             sources.size() - failed.get(), sources.size(), batches.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+  }
+
+  private void process(FTPSession session, Batch batch) throws IOException {
+    FTPClient ftp = session.getClient();
+    for (String file : batch.files) {
+      if (batch.done.contains(file)) {
+        // already processed before the batch was retried on a new connection
+        continue;
+      }
+      String source = config.getSrcDirectory() + "/" + file;
+      boolean success = (mode == Mode.DELETE) ? ftp.deleteFile(source)
+        : ftp.rename(source, archiveDirectory + "/" + file);
+      if (!success) {
+        failed.incrementAndGet();
+        LOG.error("Failed to {} source file {} with reply {}", mode == Mode.DELETE ? "delete" : "archive",
+                  source, ftp.getReplyString());
+      }
+      batch.done.add(file);
+    }
+  }
+
+  /**
+   * Creates the archive directory and the parent directories of the archived files.
+   */
+  private void createArchiveDirectories(List<String> sources) throws IOException {
+    Set<String> directories = new HashSet<>();
+    directories.add(archiveDirectory);
+    for (String source : sources) {
+      int index = source.lastIndexOf('/');
+      if (index > 0) {
+        directories.add(archiveDirectory + "/" + source.substring(0, index));
+      }
+    }
+    try (FTPSession session = new FTPSession(config.getHost(), connector.connect(config.getHost()), new AtomicLong())) {
+      for (String directory : directories) {
+        FTPUtils.makeDirectories(session.getClient(), directory);
+      }
+    }
+  }
+
+  /**
+   * A batch of files processed on the same session.
+   */
+  private static final class Batch {
+    private final List<String> files;
+    private final Set<String> done = new HashSet<>();
+
+    private Batch(List<String> files) {
+      this.files = files;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the tab separated files the action keeps in the destination directory between runs, such as the
+ * {@link ChecksumManifest} and the {@link ListingSnapshot}.
+ */
+final class TabSeparatedFile {
+  private static final Joiner JOINER = Joiner.on('\t');
+  private static final Splitter SPLITTER = Splitter.on('\t');
+
+  private TabSeparatedFile() {
+    // util class
+  }
+
+  /**
+   * Returns the fields of every line of the file at the given path, or no lines if there is no file.
+   */
+  static List<List<String>> read(FileSystem fileSystem, Path path) throws IOException {
+    List<List<String>> rows = new ArrayList<>();
+    if (!fileSystem.exists(path)) {
+      return rows;
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileSystem.open(path),
+                                                                          StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        rows.add(SPLITTER.splitToList(line));
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Writes the rows to the file at the given path, replacing the previous version. The rows are written to a hidden
+   * temporary file that is renamed once complete, so that a failed write leaves the previous version in place.
+   */
+  static void write(FileSystem fileSystem, Path path, Iterable<? extends List<?>> rows) throws IOException {
+    Path tmpPath = new Path(path.getParent(), "." + path.getName() + ".tmp");
+    try (FSDataOutputStream os = fileSystem.create(tmpPath, true);
+         Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+      for (List<?> row : rows) {
+        writer.write(JOINER.join(row));
+        writer.write('\n');
+      }
+    }
+    fileSystem.delete(path, false);
+    if (!fileSystem.rename(tmpPath, path)) {
+      throw new IOException(String.format("Failed to replace %s.", path));
+    }
+  }
+}
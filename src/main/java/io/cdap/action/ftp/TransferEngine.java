@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nullable;
+
+/**
+ * Threads on which the sessions of a {@link TransferRunner} run.
+ *
+ * A transfer spends nearly all of its time blocked on the control or data socket, so with platform threads every
+ * concurrent connection costs an operating system thread and its stack. Virtual threads are unmounted from their
+ * carrier thread while blocked on a socket, which lets hundreds of connections share a few carrier threads. They are
+ * only available on Java 21 or later and are looked up reflectively, so that the plugin still runs on older Java
+ * versions, where the virtual engine falls back to platform threads.
+ */
+enum TransferEngine {
+  PLATFORM("platform"),
+  VIRTUAL("virtual");
+
+  private static final Logger LOG = LoggerFactory.getLogger(TransferEngine.class);
+
+  private final String name;
+
+  TransferEngine(String name) {
+    this.name = name;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  @Nullable
+  static TransferEngine fromName(String name) {
+    for (TransferEngine engine : values()) {
+      if (engine.name.equalsIgnoreCase(name)) {
+        return engine;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a factory for the threads transferring files from or to the given host.
+   */
+  ThreadFactory newThreadFactory(String host) {
+    String prefix = "ftp-transfer-" + host + "-";
+    if (this == VIRTUAL) {
+      ThreadFactory factory = newVirtualThreadFactory(prefix);
+      if (factory != null) {
+        return factory;
+      }
+      LOG.warn("Virtual threads are not available on Java {}, transferring files on platform threads instead.",
+               System.getProperty("java.version"));
+    }
+    return new ThreadFactoryBuilder().setNameFormat(prefix + "%d").setDaemon(true).build();
+  }
+
+  @Nullable
+  private static ThreadFactory newVirtualThreadFactory(String prefix) {
+    Object builder;
+    try {
+      builder = Thread.class.getMethod("ofVirtual").invoke(null);
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (ReflectiveOperationException e) {
+      // Virtual threads exist but are disabled, as in Java 19 and 20 without preview features enabled
+      LOG.debug("Failed to create a virtual thread builder.", e);
+      return null;
+    }
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      Method factory = builderClass.getMethod("factory");
+      return (ThreadFactory) factory.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      LOG.debug("Failed to create a virtual thread factory.", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outcome of the transfers done by a {@link TransferRunner}: which files needed retries and which failed
+ * permanently.
+ */
+public final class TransferReport {
+  private static final Logger LOG = LoggerFactory.getLogger(TransferReport.class);
+
+  private final int failureThreshold;
+  private final AtomicInteger succeeded = new AtomicInteger();
+  private final Map<String, Integer> retried = new TreeMap<>();
+  private final Map<String, String> failed = new TreeMap<>();
+  private final Map<String, HostStatistics> hosts = new TreeMap<>();
+
+  TransferReport(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+  }
+
+  synchronized void succeeded(String host) {
+    succeeded.incrementAndGet();
+    getHostStatistics(host).files++;
+  }
+
+  synchronized void attemptFailed(String host) {
+    getHostStatistics(host).failedAttempts++;
+  }
+
+  synchronized void transferredBytes(String host, long bytes) {
+    getHostStatistics(host).bytes = bytes;
+  }
+
+  synchronized void retried(String file) {
+    retried.merge(file, 1, Integer::sum);
+  }
+
+  synchronized void failed(String file, Throwable cause) {
+    failed.put(file, String.valueOf(cause.getMessage()));
+  }
+
+  public int getSucceeded() {
+    return succeeded.get();
+  }
+
+  /**
+   * Returns the number of retries per file, for every file that needed at least one retry.
+   */
+  public synchronized Map<String, Integer> getRetried() {
+    return Collections.unmodifiableMap(new TreeMap<>(retried));
+  }
+
+  /**
+   * Returns the error message per file, for every file that could not be transferred.
+   */
+  public synchronized Map<String, String> getFailed() {
+    return Collections.unmodifiableMap(new TreeMap<>(failed));
+  }
+
+  /**
+   * Returns the statistics of every host files were transferred from or to.
+   */
+  public synchronized Map<String, HostStatistics> getHosts() {
+    Map<String, HostStatistics> copy = new TreeMap<>();
+    for (Map.Entry<String, HostStatistics> entry : hosts.entrySet()) {
+      copy.put(entry.getKey(), entry.getValue().copy());
+    }
+    return Collections.unmodifiableMap(copy);
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  /**
+   * Returns whether more files failed than the failure threshold allows.
+   */
+  public synchronized boolean isThresholdExceeded() {
+    return failed.size() > failureThreshold;
+  }
+
+  synchronized void log() {
+    LOG.info("Transferred {} files, {} files needed retries, {} files failed with a failure threshold of {}.",
+             succeeded.get(), retried.size(), failed.size(), failureThreshold);
+    for (Map.Entry<String, HostStatistics> entry : hosts.entrySet()) {
+      HostStatistics statistics = entry.getValue();
+      LOG.info("Host {} transferred {} files and {} bytes, {} attempts failed.", entry.getKey(), statistics.files,
+               statistics.bytes, statistics.failedAttempts);
+    }
+    for (Map.Entry<String, Integer> entry : retried.entrySet()) {
+      LOG.info("File {} was retried {} times.", entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, String> entry : failed.entrySet()) {
+      LOG.error("File {} failed permanently: {}", entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "TransferReport{" +
+      "succeeded=" + succeeded +
+      ", retried=" + retried.keySet() +
+      ", failed=" + failed.keySet() +
+      ", failureThreshold=" + failureThreshold +
+      ", hosts=" + hosts +
+      '}';
+  }
+
+  private HostStatistics getHostStatistics(String host) {
+    return hosts.computeIfAbsent(host, k -> new HostStatistics());
+  }
+
+  /**
+   * Transfers done with a single host.
+   */
+  public static final class HostStatistics {
+    private int files;
+    private long bytes;
+    private int failedAttempts;
+
+    public int getFiles() {
+      return files;
+    }
+
+    /**
+     * Returns the number of bytes read from files transferred with the host, including failed attempts.
+     */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /**
+     * Returns the number of failed connections and transfers.
+     */
+    public int getFailedAttempts() {
+      return failedAttempts;
+    }
+
+    private HostStatistics copy() {
+      HostStatistics copy = new HostStatistics();
+      copy.files = files;
+      copy.bytes = bytes;
+      copy.failedAttempts = failedAttempts;
+      return copy;
+    }
+
+    @Override
+    public String toString() {
+      return "HostStatistics{files=" + files + ", bytes=" + bytes + ", failedAttempts=" + failedAttempts + '}';
+    }
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.base.Throwables;
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Runs file transfers against one FTP server, or a set of mirrors serving the same files, over a number of
+ * concurrent sessions. The number of sessions to every host is driven by its own
+ * {@link AdaptiveConcurrencyController}, so it grows while throughput keeps improving and shrinks when the server
+ * pushes back. All sessions take their files from a shared queue, so files are spread across mirrors in proportion
+ * to the throughput each of them delivers.
+ *
+ * A transfer failing with an {@link IOException} is retried with exponential backoff and jitter on a freshly
+ * connected session, since the failure may have left the control connection in an unusable state. With mirrors, a
+ * failed file is retried on a mirror it did not fail on yet, and only waits for the backoff once it failed on every
+ * usable mirror. Files that still fail after all retries are recorded in the {@link TransferReport}, and the run
+ * only fails once more files failed than the failure threshold allows.
+ *
+ * @param <T> type of the items to transfer
+ */
+final class TransferRunner<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(TransferRunner.class);
+  private static final long SAMPLE_WINDOW_MILLIS = 2000L;
+  private static final long POLL_MILLIS = 200L;
+  private static final int MAX_CONSECUTIVE_REFUSALS = 5;
+  private static final long MAX_RETRY_DELAY_MILLIS = 30000L;
+
+  /**
+   * Opens a new logged in connection to an FTP server.
+   */
+  interface Connector {
+    FTPClient connect(String host) throws IOException;
+  }
+
+  /**
+   * Transfers a single item using the given session.
+   */
+  interface Transfer<T> {
+    void transfer(FTPSession session, T item) throws IOException;
+  }
+
+  private final List<Mirror> mirrors = new ArrayList<>();
+  private final TransferEngine engine;
+  private final Connector connector;
+  private final int maxRetries;
+  private final long retryBaseMillis;
+  private final TransferReport report;
+  private final Queue<Attempt<T>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Object lock = new Object();
+
+  TransferRunner(List<String> hosts, int maxConnections, int maxRetries, int failureThreshold, TransferEngine engine,
+                 Connector connector) {
+    this(hosts, maxConnections, maxRetries, failureThreshold, 1000L, engine, connector);
+  }
+
+  TransferRunner(List<String> hosts, int maxConnections, int maxRetries, int failureThreshold, long retryBaseMillis,
+                 Connector connector) {
+    this(hosts, maxConnections, maxRetries, failureThreshold, retryBaseMillis, TransferEngine.PLATFORM, connector);
+  }
+
+  private TransferRunner(List<String> hosts, int maxConnections, int maxRetries, int failureThreshold,
+                         long retryBaseMillis, TransferEngine engine, Connector connector) {
+    for (String host : hosts) {
+      mirrors.add(new Mirror(host, new AdaptiveConcurrencyController(host, maxConnections, SAMPLE_WINDOW_MILLIS)));
+    }
+    this.engine = engine;
+    this.connector = connector;
+    this.maxRetries = maxRetries;
+    this.retryBaseMillis = retryBaseMillis;
+    this.report = new TransferReport(failureThreshold);
+  }
+
+  /**
+   * Transfers all the given items and blocks until they are done.
+   *
+   * @param items items to transfer
+   * @param names gives the name under which an item is reported
+   * @param transfer transfers a single item
+   * @return the report of the run
+   * @throws Exception if a transfer failed with an unexpected error or the failure threshold was exceeded
+   */
+  TransferReport run(Collection<? extends T> items, Function<? super T, String> names,
+                     Transfer<T> transfer) throws Exception {
+    for (T item : items) {
+      pending.add(new Attempt<>(item, names.apply(item)));
+    }
+    long startNanos = System.nanoTime();
+    for (Mirror mirror : mirrors) {
+      mirror.executor = Executors.newCachedThreadPool(engine.newThreadFactory(mirror.host));
+    }
+    try {
+      while (failure.get() == null && (!pending.isEmpty() || getActiveSessions() > 0)) {
+        long now = System.nanoTime();
+        for (Mirror mirror : mirrors) {
+          AdaptiveConcurrencyController controller = mirror.controller;
+          while (isUsable(mirror, now) && mirror.activeSessions.get() < controller.getLimit()
+            && controller.canConnect(now) && hasEligible(mirror, now)) {
+            mirror.activeSessions.incrementAndGet();
+            mirror.executor.execute(() -> work(mirror, transfer));
+          }
+        }
+        synchronized (lock) {
+          lock.wait(POLL_MILLIS);
+        }
+        now = System.nanoTime();
+        for (Mirror mirror : mirrors) {
+          mirror.controller.sample(mirror.bytesTransferred.get(), mirror.activeSessions.get(), !pending.isEmpty(),
+                                   now);
+        }
+      }
+    } finally {
+      for (Mirror mirror : mirrors) {
+        mirror.executor.shutdownNow();
+      }
+      for (Mirror mirror : mirrors) {
+        mirror.executor.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    }
+    long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    for (Mirror mirror : mirrors) {
+      mirror.controller.logSettled();
+      report.transferredBytes(mirror.host, mirror.bytesTransferred.get());
+      if (mirrors.size() > 1) {
+        LOG.info("Mirror {} delivered {} bytes/s on average{}.", mirror.host,
+                 mirror.bytesTransferred.get() * 1000 / elapsedMillis,
+                 mirror.disabled ? " before it was disabled" : "");
+      }
+    }
+    report.log();
+
+    Throwable t = failure.get();
+    if (t != null) {
+      Throwables.propagateIfPossible(t, Exception.class);
+      throw Throwables.propagate(t);
+    }
+    return report;
+  }
+
+  private void work(Mirror mirror, Transfer<T> transfer) {
+    String host = mirror.host;
+    boolean retired = false;
+    FTPSession session = null;
+    try {
+      while (failure.get() == null) {
+        int active = mirror.activeSessions.get();
+        if (active > mirror.controller.getLimit() && mirror.activeSessions.compareAndSet(active, active - 1)) {
+          retired = true;
+          LOG.debug("Closing transfer session to {} since concurrency was lowered.", host);
+          break;
+        }
+        Attempt<T> attempt = poll(mirror, System.nanoTime());
+        if (attempt == null) {
+          break;
+        }
+
+        try {
+          if (session == null) {
+            session = connect(mirror);
+            if (session == null) {
+              // Leave the item for another session
+              pending.add(attempt);
+              return;
+            }
+          }
+          transfer.transfer(session, attempt.item);
+          report.succeeded(host);
+        } catch (IOException e) {
+          // The control connection may be unusable, always continue on a new one
+          if (session != null) {
+            session.close();
+            session = null;
+          }
+          report.attemptFailed(host);
+          if (attempt.attempts >= maxRetries) {
+            LOG.error("Transfer of {} from {} failed after {} attempts.", attempt.name, host, attempt.attempts + 1, e);
+            report.failed(attempt.name, e);
+            if (report.isThresholdExceeded()) {
+              failure.compareAndSet(null, new RuntimeException(String.format(
+                "Transfer of %s files from FTP server %s failed, more than the failure threshold of %s. " +
+                  "Failed files: %s", report.getFailed().size(), getHosts(), report.getFailureThreshold(),
+                report.getFailed().keySet())));
+            }
+            continue;
+          }
+          long delay = getRetryDelay(attempt.attempts);
+          LOG.warn("Transfer of {} from {} failed, retrying{} in {} ms.", attempt.name, host,
+                   (mirrors.size() > 1) ? " on another mirror or" : "", delay, e);
+          report.retried(attempt.name);
+          attempt.failedOn(host, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay));
+          pending.add(attempt);
+        }
+      }
+    } catch (Throwable t) {
+      failure.compareAndSet(null, t);
+    } finally {
+      if (session != null) {
+        session.close();
+      }
+      if (!retired) {
+        mirror.activeSessions.decrementAndGet();
+      }
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Opens a new session, or returns {@code null} if the server refused it because of too many open sessions or
+   * could not be reached, in which case the session should end.
+   */
+  @Nullable
+  private FTPSession connect(Mirror mirror) throws IOException {
+    AdaptiveConcurrencyController controller = mirror.controller;
+    try {
+      FTPSession session = new FTPSession(mirror.host, connector.connect(mirror.host), mirror.bytesTransferred);
+      synchronized (mirror) {
+        mirror.connected = true;
+        mirror.consecutiveFailures = 0;
+      }
+      controller.onConnected();
+      return session;
+    } catch (FTPConnectionRefusedException e) {
+      // Without any prior session this is most likely a configuration problem rather than pushback
+      if (!mirror.connected || controller.getConsecutiveRefusals() >= MAX_CONSECUTIVE_REFUSALS) {
+        disableOrThrow(mirror, e);
+        return null;
+      }
+      controller.onRefused(mirror.activeSessions.get(), System.nanoTime());
+      return null;
+    } catch (IOException e) {
+      if (!hasOtherUsable(mirror, System.nanoTime())) {
+        // Counted as a failed attempt of the file
+        throw e;
+      }
+      // Keep away from an unreachable mirror for a while, the other mirrors carry on with the files
+      long delay;
+      synchronized (mirror) {
+        delay = getRetryDelay(mirror.consecutiveFailures++);
+        mirror.blockedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+      }
+      report.attemptFailed(mirror.host);
+      LOG.warn("Failed to connect to mirror {}, not using it for {} ms.", mirror.host, delay, e);
+      return null;
+    }
+  }
+
+  /**
+   * Stops using a mirror that refuses connections, unless it is the last usable one.
+   */
+  private void disableOrThrow(Mirror mirror, FTPConnectionRefusedException e) throws FTPConnectionRefusedException {
+    synchronized (mirrors) {
+      for (Mirror other : mirrors) {
+        if (other != mirror && !other.disabled) {
+          mirror.disabled = true;
+          LOG.error("Mirror {} refused the connection, transferring the remaining files from the other mirrors.",
+                    mirror.host, e);
+          return;
+        }
+      }
+    }
+    throw e;
+  }
+
+  private boolean hasOtherUsable(Mirror mirror, long nowNanos) {
+    for (Mirror other : mirrors) {
+      if (other != mirror && isUsable(other, nowNanos)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isUsable(Mirror mirror, long nowNanos) {
+    synchronized (mirror) {
+      return !mirror.disabled && nowNanos >= mirror.blockedUntilNanos;
+    }
+  }
+
+  private boolean hasEligible(Mirror mirror, long nowNanos) {
+    for (Attempt<T> attempt : pending) {
+      if (isEligible(attempt, mirror, nowNanos)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private Attempt<T> poll(Mirror mirror, long nowNanos) {
+    for (Attempt<T> attempt : pending) {
+      if (isEligible(attempt, mirror, nowNanos) && pending.remove(attempt)) {
+        return attempt;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether the given mirror should transfer the item. Items go to a mirror they did not fail on yet, if
+   * there is any usable one, and otherwise wait for their retry delay.
+   */
+  private boolean isEligible(Attempt<T> attempt, Mirror mirror, long nowNanos) {
+    synchronized (attempt) {
+      if (!attempt.failedHosts.contains(mirror.host)) {
+        return true;
+      }
+      for (Mirror other : mirrors) {
+        if (!attempt.failedHosts.contains(other.host) && isUsable(other, nowNanos)) {
+          return false;
+        }
+      }
+      return nowNanos >= attempt.notBeforeNanos;
+    }
+  }
+
+  private int getActiveSessions() {
+    int active = 0;
+    for (Mirror mirror : mirrors) {
+      active += mirror.activeSessions.get();
+    }
+    return active;
+  }
+
+  private List<String> getHosts() {
+    List<String> hosts = new ArrayList<>();
+    for (Mirror mirror : mirrors) {
+      hosts.add(mirror.host);
+    }
+    return hosts;
+  }
+
+  /**
+   * Returns the delay before the given retry, growing exponentially with full jitter in its upper half.
+   */
+  private long getRetryDelay(int attempt) {
+    long delay = Math.min(MAX_RETRY_DELAY_MILLIS, retryBaseMillis << Math.min(attempt, 20));
+    return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+  }
+
+  /**
+   * State of the sessions to one host.
+   */
+  private static final class Mirror {
+    private final String host;
+    private final AdaptiveConcurrencyController controller;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private ExecutorService executor;
+    private volatile boolean connected;
+    private volatile boolean disabled;
+    private int consecutiveFailures;
+    private long blockedUntilNanos = Long.MIN_VALUE;
+
+    private Mirror(String host, AdaptiveConcurrencyController controller) {
+      this.host = host;
+      this.controller = controller;
+    }
+  }
+
+  /**
+   * An item waiting to be transferred, together with the hosts it already failed on.
+   */
+  private static final class Attempt<T> {
+    private final T item;
+    private final String name;
+    private final Set<String> failedHosts = new HashSet<>();
+    private int attempts;
+    private long notBeforeNanos;
+
+    private Attempt(T item, String name) {
+      this.item = item;
+      this.name = name;
+    }
+
+    private synchronized void failedOn(String host, long notBeforeNanos) {
+      failedHosts.add(host);
+      attempts++;
+      this.notBeforeNanos = notBeforeNanos;
+    }
+  }
+}
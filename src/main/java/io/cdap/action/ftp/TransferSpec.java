@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A source directory to copy to a destination directory, as given by the additional transfers of a
+ * {@link FTPCopyActionConfig}. Properties that are not given are taken from the action config.
+ */
+public final class TransferSpec {
+  private static final Gson GSON = new Gson();
+  private static final Type LIST_TYPE = new TypeToken<List<TransferSpec>>() { }.getType();
+
+  private final String srcDirectory;
+  private final String destDirectory;
+  private final String fileNameRegex;
+  private final Boolean extractZipFiles;
+
+  public TransferSpec(String srcDirectory, String destDirectory, @Nullable String fileNameRegex,
+                      @Nullable Boolean extractZipFiles) {
+    this.srcDirectory = srcDirectory;
+    this.destDirectory = destDirectory;
+    this.fileNameRegex = fileNameRegex;
+    this.extractZipFiles = extractZipFiles;
+  }
+
+  /**
+   * Parses a JSON array of transfer specs.
+   *
+   * @throws IllegalArgumentException if the given string is not a JSON array of transfer specs
+   */
+  public static List<TransferSpec> parseList(String json) {
+    try {
+      List<TransferSpec> specs = GSON.fromJson(json, LIST_TYPE);
+      if (specs == null) {
+        throw new IllegalArgumentException("No transfers given.");
+      }
+      return specs;
+    } catch (JsonParseException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  public static String toJson(List<TransferSpec> specs) {
+    return GSON.toJson(specs, LIST_TYPE);
+  }
+
+  public String getSrcDirectory() {
+    return srcDirectory;
+  }
+
+  public String getDestDirectory() {
+    return destDirectory;
+  }
+
+  @Nullable
+  public String getFileNameRegex() {
+    return fileNameRegex;
+  }
+
+  @Nullable
+  public Boolean getExtractZipFiles() {
+    return extractZipFiles;
+  }
+}
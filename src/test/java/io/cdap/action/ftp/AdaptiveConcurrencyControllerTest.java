@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AdaptiveConcurrencyController}.
+ */
+public class AdaptiveConcurrencyControllerTest {
+  private static final long WINDOW_MILLIS = 1000L;
+  private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS);
+
+  @Test
+  public void testRaisesWhileThroughputImproves() {
+    AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController("localhost", 4, WINDOW_MILLIS);
+    long now = 0;
+    long bytes = 0;
+    controller.sample(bytes, 1, true, now);
+    for (int i = 1; i <= 3; i++) {
+      now += WINDOW_NANOS;
+      // throughput proportional to the number of sessions
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(4, controller.getLimit());
+
+    // Never goes above the configured maximum
+    now += WINDOW_NANOS;
+    bytes += 5000L;
+    controller.sample(bytes, controller.getLimit(), true, now);
+    Assert.assertEquals(4, controller.getLimit());
+  }
+
+  @Test
+  public void testSettlesWhenThroughputIsFlat() {
+    AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController("localhost", 8, WINDOW_MILLIS);
+    long now = 0;
+    long bytes = 0;
+    controller.sample(bytes, 1, true, now);
+    for (int i = 0; i < 6; i++) {
+      now += WINDOW_NANOS;
+      // server bandwidth saturates at two sessions
+      bytes += 1000L * Math.min(2, controller.getLimit());
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(2, controller.getLimit());
+  }
+
+  @Test
+  public void testBacksOffOnRefusal() {
+    AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController("localhost", 8, WINDOW_MILLIS);
+    long now = 0;
+    long bytes = 0;
+    controller.sample(bytes, 1, true, now);
+    for (int i = 0; i < 3; i++) {
+      now += WINDOW_NANOS;
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(4, controller.getLimit());
+
+    controller.onRefused(3, now);
+    Assert.assertEquals(3, controller.getLimit());
+    Assert.assertFalse(controller.canConnect(now));
+    Assert.assertTrue(controller.canConnect(now + WINDOW_NANOS));
+
+    // The refused level is not probed again
+    now += WINDOW_NANOS;
+    bytes += 10000L;
+    controller.sample(bytes, controller.getLimit(), true, now);
+    now += WINDOW_NANOS;
+    bytes += 20000L;
+    controller.sample(bytes, controller.getLimit(), true, now);
+    Assert.assertEquals(3, controller.getLimit());
+  }
+
+  @Test
+  public void testBacksOffOnThroughputDrop() {
+    AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController("localhost", 8, WINDOW_MILLIS);
+    long now = 0;
+    long bytes = 0;
+    controller.sample(bytes, 1, true, now);
+    for (int i = 0; i < 2; i++) {
+      now += WINDOW_NANOS;
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(3, controller.getLimit());
+
+    now += WINDOW_NANOS;
+    bytes += 500L;
+    controller.sample(bytes, controller.getLimit(), true, now);
+    Assert.assertEquals(2, controller.getLimit());
+  }
+
+  @Test
+  public void testProbesAgainAfterTransientDrop() {
+    AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController("localhost", 8, WINDOW_MILLIS);
+    long now = 0;
+    long bytes = 0;
+    controller.sample(bytes, 1, true, now);
+    for (int i = 0; i < 2; i++) {
+      now += WINDOW_NANOS;
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(3, controller.getLimit());
+
+    // A single slow window
+    now += WINDOW_NANOS;
+    bytes += 500L;
+    controller.sample(bytes, controller.getLimit(), true, now);
+    Assert.assertEquals(2, controller.getLimit());
+
+    // Throughput recovers, the lowered level is held for a while before probing upward again
+    for (int i = 0; i < 4; i++) {
+      now += WINDOW_NANOS;
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+      Assert.assertEquals(2, controller.getLimit());
+    }
+    for (int i = 0; i < 2; i++) {
+      now += WINDOW_NANOS;
+      bytes += 1000L * controller.getLimit();
+      controller.sample(bytes, controller.getLimit(), true, now);
+    }
+    Assert.assertEquals(4, controller.getLimit());
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockftpserver.core.command.Command;
+import org.mockftpserver.core.command.CommandNames;
+import org.mockftpserver.core.session.Session;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.command.AbstractFakeCommandHandler;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+import java.io.File;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link ChannelFTPClient}.
+ */
+public class ChannelFTPClientTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private FakeFtpServer ftpServer;
+  private ChannelFTPClient ftp;
+
+  @Before
+  public void setUp() throws Exception {
+    UnixFakeFileSystem fileSystem = new UnixFakeFileSystem();
+    fileSystem.add(new DirectoryEntry("/home/john"));
+    ftpServer = new FakeFtpServer();
+    ftpServer.setServerControlPort(0);
+    ftpServer.setFileSystem(fileSystem);
+    ftpServer.addUserAccount(new UserAccount("john", "abcd", "/home/john"));
+    ftpServer.start();
+    ftp = (ChannelFTPClient) FTPUtils.getFTPClient("localhost", ftpServer.getServerControlPort(), "john", "abcd");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    ftp.disconnect();
+    ftpServer.stop();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    // Larger than a chunk and with line breaks, which must not be converted in either direction
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    content[100] = '\r';
+    content[101] = '\n';
+    File source = TMP_FOLDER.newFile();
+    Files.write(source.toPath(), content);
+
+    AtomicLong sent = new AtomicLong();
+    try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+      Assert.assertTrue(ftp.storeFile("/home/john/file.bin", channel, sent::addAndGet));
+    }
+    Assert.assertEquals(content.length, sent.get());
+
+    File destination = TMP_FOLDER.newFile();
+    AtomicLong received = new AtomicLong();
+    try (FileChannel channel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)) {
+      Assert.assertTrue(ftp.retrieveFile("/home/john/file.bin", channel, received::addAndGet));
+    }
+    Assert.assertEquals(content.length, received.get());
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+
+    // The control connection is still usable for commands and stream transfers
+    Assert.assertTrue(ftp.deleteFile("/home/john/file.bin"));
+  }
+
+  @Test
+  public void testStalledDataConnection() throws Exception {
+    // Sends a few bytes, then keeps the data connection open without sending more
+    ftpServer.setCommandHandler(CommandNames.RETR, new AbstractFakeCommandHandler() {
+      @Override
+      protected void handle(Command command, Session session) {
+        sendReply(session, 150);
+        session.openDataConnection();
+        session.sendData(new byte[] {1, 2, 3}, 3);
+        try {
+          TimeUnit.SECONDS.sleep(5);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        session.closeDataConnection();
+        sendReply(session, 226);
+      }
+    });
+    ftp.setDataTimeout(200);
+
+    File destination = TMP_FOLDER.newFile();
+    long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)) {
+      ftp.retrieveFile("/home/john/stalled.bin", channel, bytes -> { });
+      Assert.fail("Expected the stalled download to time out");
+    } catch (SocketTimeoutException e) {
+      // Expected
+    }
+    Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+  }
+
+  @Test
+  public void testMissingFile() throws Exception {
+    File destination = TMP_FOLDER.newFile();
+    try (FileChannel channel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)) {
+      Assert.assertFalse(ftp.retrieveFile("/home/john/missing.bin", channel, bytes -> { }));
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.FileSystem;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests for {@link DirectoryWalker}.
+ */
+public class DirectoryWalkerTest {
+  private static final String ROOT = "/home/john/tree";
+  private static final long NOW = System.currentTimeMillis();
+  private static final long DAY = 24L * 3600 * 1000;
+
+  private FakeFtpServer ftpServer;
+  private FileSystem fileSystem;
+  private FTPClient ftp;
+
+  @Before
+  public void setUp() throws Exception {
+    fileSystem = new UnixFakeFileSystem();
+    addDirectory(ROOT, 10);
+    addDirectory(ROOT + "/a", 10);
+    addDirectory(ROOT + "/b", 10);
+    addFile(ROOT + "/top.txt", 10);
+    addFile(ROOT + "/a/x.txt", 10);
+    addFile(ROOT + "/b/y.txt", 10);
+    addFile(ROOT + "/b/ignored.csv", 10);
+
+    ftpServer = new FakeFtpServer();
+    ftpServer.setServerControlPort(0);
+    ftpServer.setFileSystem(fileSystem);
+    ftpServer.addUserAccount(new UserAccount("john", "abcd", "/home/john"));
+    ftpServer.start();
+    ftp = FTPUtils.getFTPClient("localhost", ftpServer.getServerControlPort(), "john", "abcd");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    ftp.disconnect();
+    ftpServer.stop();
+  }
+
+  private void addDirectory(String path, int daysAgo) {
+    DirectoryEntry entry = new DirectoryEntry(path);
+    entry.setLastModified(new Date(NOW - daysAgo * DAY));
+    fileSystem.add(entry);
+  }
+
+  private void addFile(String path, int daysAgo) {
+    FileEntry entry = new FileEntry(path, "content of " + path);
+    entry.setLastModified(new Date(NOW - daysAgo * DAY));
+    fileSystem.add(entry);
+  }
+
+  private static List<String> names(List<FTPFile> files) {
+    List<String> names = new ArrayList<>();
+    for (FTPFile file : files) {
+      names.add(file.getName());
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  @Test
+  public void testSettledSubtreesArePruned() throws Exception {
+    long settledBefore = NOW - DAY;
+    DirectoryWalker walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", new ListingSnapshot(null), settledBefore);
+    Assert.assertEquals(Arrays.asList("a/x.txt", "b/y.txt", "top.txt"), names(walker.walk()));
+    Assert.assertEquals(3, walker.getListed());
+
+    // Nothing changed, only the root is listed
+    walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", walker.getSnapshot(), settledBefore);
+    Assert.assertTrue(walker.walk().isEmpty());
+    Assert.assertEquals(1, walker.getListed());
+
+    // A file added to a directory changes its modification time, and the whole directory is copied again
+    addFile(ROOT + "/b/z.txt", 0);
+    ((DirectoryEntry) fileSystem.getEntry(ROOT + "/b")).setLastModified(new Date(NOW));
+    walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", walker.getSnapshot(), settledBefore);
+    Assert.assertEquals(Arrays.asList("b/y.txt", "b/z.txt"), names(walker.walk()));
+    Assert.assertEquals(2, walker.getListed());
+
+    // The subtree changed within the quiet period, so it is listed again even though its time did not change
+    walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", walker.getSnapshot(), settledBefore);
+    Assert.assertTrue(walker.walk().isEmpty());
+    Assert.assertEquals(2, walker.getListed());
+  }
+
+  @Test
+  public void testInvalidatedDirectoriesAreCopiedAgain() throws Exception {
+    DirectoryWalker walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", new ListingSnapshot(null), NOW);
+    walker.walk();
+    ListingSnapshot snapshot = walker.getSnapshot();
+    snapshot.invalidate("a/x.txt");
+
+    walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", snapshot, NOW);
+    Assert.assertEquals(Collections.singletonList("a/x.txt"), names(walker.walk()));
+    Assert.assertEquals(2, walker.getListed());
+  }
+
+  @Test
+  public void testChangedRegexListsTheWholeTree() throws Exception {
+    long settledBefore = NOW - DAY;
+    DirectoryWalker walker = new DirectoryWalker(ftp, ROOT, ".*\\.txt", new ListingSnapshot(null), settledBefore);
+    walker.walk();
+
+    // Files skipped by the previous regex are found in the settled subtrees too
+    walker = new DirectoryWalker(ftp, ROOT, ".*", walker.getSnapshot(), settledBefore);
+    Assert.assertEquals(Arrays.asList("a/x.txt", "b/ignored.csv", "b/y.txt", "top.txt"), names(walker.walk()));
+    Assert.assertEquals(3, walker.getListed());
+  }
+}
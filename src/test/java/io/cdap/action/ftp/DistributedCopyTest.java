@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link DistributedCopy}.
+ */
+public class DistributedCopyTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static FTPFile file(String name, long size) {
+    FTPFile file = new FTPFile();
+    file.setName(name);
+    file.setSize(size);
+    return file;
+  }
+
+  @Test
+  public void testPartitionBalancesBytes() {
+    List<FTPFile> files = Arrays.asList(file("a", 70), file("b", 50), file("c", 40), file("d", 30), file("e", 10));
+    List<CopyListSplit> splits = DistributedCopy.partition(files, 2);
+    Assert.assertEquals(2, splits.size());
+
+    List<Long> lengths = new ArrayList<>();
+    int count = 0;
+    for (CopyListSplit split : splits) {
+      lengths.add(split.getLength());
+      count += split.getFiles().size();
+    }
+    Assert.assertEquals(files.size(), count);
+    lengths.sort(null);
+    Assert.assertEquals(Arrays.asList(100L, 100L), lengths);
+  }
+
+  @Test
+  public void testPartitionWithFewFiles() {
+    List<CopyListSplit> splits = DistributedCopy.partition(Arrays.asList(file("a", 1), file("b", 2)), 10);
+    Assert.assertEquals(2, splits.size());
+    Assert.assertTrue(DistributedCopy.partition(new ArrayList<>(), 10).isEmpty());
+  }
+
+  @Test
+  public void testPasswordIsNotInTheConfiguration() throws Exception {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder()
+      .setHost("ftp.example.com")
+      .setPort(2121)
+      .setUserName("user")
+      .setPassword("pa55-w0rd")
+      .setDestDirectory("/dest")
+      .setSrcDirectory("/src")
+      .setFileNameRegex(".*\\.csv")
+      .setSmallFileThreshold(1024L)
+      .build();
+    Job job = Job.getInstance(new Configuration());
+    DistributedCopy.setConfig(job, config);
+    for (Map.Entry<String, String> entry : job.getConfiguration()) {
+      Assert.assertFalse(entry.getKey(), entry.getValue().contains("pa55-w0rd"));
+    }
+
+    FTPCopyActionConfig copy = DistributedCopy.getConfig(job);
+    Assert.assertEquals("ftp.example.com", copy.getHost());
+    Assert.assertEquals(2121, copy.getPort());
+    Assert.assertEquals("user", copy.getUserName());
+    Assert.assertEquals("pa55-w0rd", copy.getPassword());
+    Assert.assertEquals("/src", copy.getSrcDirectory());
+    Assert.assertEquals(".*\\.csv", copy.getFileNameRegex());
+    Assert.assertEquals(Long.valueOf(1024L), copy.getSmallFileThreshold());
+    Assert.assertNull(copy.getChunkSize());
+  }
+
+  @Test
+  public void testSplitsAreReadFromTheCopyList() throws Exception {
+    List<CopyListSplit> splits = DistributedCopy.partition(Arrays.asList(file("a", 3), file("b", 2), file("c", 1)), 2);
+    Job job = Job.getInstance(new Configuration());
+    Path copyList = new Path(TMP_FOLDER.newFolder().getAbsolutePath(), "copy-list");
+    CopyListInputFormat.setSplits(job.getConfiguration(), copyList, splits);
+    Assert.assertEquals(copyList.toString(), job.getConfiguration().get(CopyListInputFormat.COPY_LIST));
+
+    List<InputSplit> read = new CopyListInputFormat().getSplits(job);
+    Assert.assertEquals(splits.size(), read.size());
+    for (int i = 0; i < splits.size(); i++) {
+      List<String> expected = new ArrayList<>();
+      splits.get(i).getFiles().forEach(file -> expected.add(file.getName()));
+      List<String> actual = new ArrayList<>();
+      ((CopyListSplit) read.get(i)).getFiles().forEach(file -> actual.add(file.getName()));
+      Assert.assertEquals(expected, actual);
+    }
+  }
+}
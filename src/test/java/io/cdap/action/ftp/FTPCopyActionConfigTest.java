@@ -20,6 +20,9 @@ import io.cdap.cdap.etl.mock.validation.MockFailureCollector;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Test for {@link FTPCopyActionConfig}.
  */
@@ -66,6 +69,17 @@ public class FTPCopyActionConfigTest {
     ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.DEST_DIRECTORY);
   }
 
+  @Test
+  public void testSmallFileThresholdTooLarge() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setSmallFileThreshold(FTPCopyActionConfig.MAX_SMALL_FILE_THRESHOLD + 1)
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.SMALL_FILE_THRESHOLD);
+  }
+
   @Test
   public void testInvalidPortNumber() {
     FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
@@ -87,4 +101,136 @@ public class FTPCopyActionConfigTest {
     config.validate(failureCollector);
     ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.SOURCE_DIRECTORY);
   }
+
+  @Test
+  public void testInvalidMaxConnections() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setMaxConnections(0)
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.MAX_CONNECTIONS);
+  }
+
+  @Test
+  public void testArchiveWithoutDirectory() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setPostCopyAction("archive")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.ARCHIVE_DIRECTORY);
+  }
+
+  @Test
+  public void testInvalidMirror() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setMirrors("mirror1:21, mirror2:port")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.MIRRORS);
+    Assert.assertEquals(Arrays.asList("localhost", "mirror1:21", "mirror2:port"), config.getHosts());
+  }
+
+  @Test
+  public void testPostCopyActionWithMirrors() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setMirrors("mirror1")
+      .setPostCopyAction("delete")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.POST_COPY_ACTION);
+  }
+
+  @Test
+  public void testInvalidAppendMode() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setAppendMode("prepend")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.APPEND_MODE);
+  }
+
+  @Test
+  public void testAppendModeWithCompression() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setAppendMode("delta")
+      .setCompressionCodec("gzip")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.APPEND_MODE);
+  }
+
+  @Test
+  public void testDestinationPathTemplateWithUnknownGroup() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setFileNameRegex("(.*)\\.csv")
+      .setDestinationPathTemplate("${2}/${name}")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector,
+                                                        FTPCopyActionConfig.DESTINATION_PATH_TEMPLATE);
+  }
+
+  @Test
+  public void testAbsoluteDestinationPathTemplate() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setDestinationPathTemplate("/${yyyy}/${name}")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector,
+                                                        FTPCopyActionConfig.DESTINATION_PATH_TEMPLATE);
+  }
+
+  @Test
+  public void testInvalidTransfers() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setTransfers("[{\"srcDirectory\": \"in\"")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.TRANSFERS);
+  }
+
+  @Test
+  public void testTransfersSharingDestination() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setTransfers("[{\"srcDirectory\": \"other/in\", \"destDirectory\": \"data/out\"}]")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPCopyActionConfig.TRANSFERS);
+  }
+
+  @Test
+  public void testTransferConfigs() {
+    FTPCopyActionConfig config = FTPCopyActionConfig.builder(VALID_CONFIG)
+      .setTransfers("[{\"srcDirectory\": \"other/in\", \"destDirectory\": \"other/out\", " +
+                      "\"extractZipFiles\": false}]")
+      .build();
+
+    List<FTPCopyActionConfig> configs = config.getTransferConfigs();
+    Assert.assertEquals(2, configs.size());
+    Assert.assertSame(config, configs.get(0));
+    Assert.assertEquals("other/in", configs.get(1).getSrcDirectory());
+    Assert.assertEquals("other/out", configs.get(1).getDestDirectory());
+    Assert.assertEquals(config.getFileNameRegex(), configs.get(1).getFileNameRegex());
+    Assert.assertFalse(configs.get(1).getExtractZipFiles());
+  }
 }
@@ -0,0 +1,511 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import io.cdap.cdap.etl.mock.action.MockActionContext;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockftpserver.core.command.Command;
+import org.mockftpserver.core.session.Session;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.command.AbstractFakeCommandHandler;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.FileSystem;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for {@link FTPCopyAction}.
+ */
+public class FTPCopyActionTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final String USER = "john";
+  private static final String PWD = "abcd";
+  private static final String HOME_DIR = "/home/john";
+  private static final String SRC_DIR = HOME_DIR + "/in";
+  private static final String ARCHIVE_SRC_DIR = HOME_DIR + "/archived";
+  private static final String TREE_SRC_DIR = HOME_DIR + "/tree";
+  private static final String GROWING_SRC_DIR = HOME_DIR + "/growing";
+  private static final String CRLF_SRC_DIR = HOME_DIR + "/crlf";
+  private static final String UNREADABLE_SRC_DIR = HOME_DIR + "/unreadable";
+  private static final String SMALL_CONTENT = "small";
+  private static final String LARGE_CONTENT = "a somewhat larger file";
+  private static final String CSV_CONTENT = "a,b\n1,2\n";
+  private static final String CRLF_CONTENT = "a,b\r\n1,2\r\n";
+
+  private static FakeFtpServer ftpServer;
+  private static int port;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    ftpServer = new FakeFtpServer();
+    ftpServer.setServerControlPort(0);
+
+    FileSystem fileSystem = new UnixFakeFileSystem();
+    fileSystem.add(new FileEntry(SRC_DIR + "/small.txt", SMALL_CONTENT));
+    fileSystem.add(new FileEntry(SRC_DIR + "/large.txt", LARGE_CONTENT));
+    fileSystem.add(new FileEntry(SRC_DIR + "/other.csv", "ignored"));
+    fileSystem.add(new FileEntry(SRC_DIR + "/large.txt.md5", md5(LARGE_CONTENT) + "  large.txt\n"));
+    fileSystem.add(new FileEntry(SRC_DIR + "/small.txt.md5", md5("corrupted") + "  small.txt\n"));
+    fileSystem.add(new FileEntry(ARCHIVE_SRC_DIR + "/a.txt", SMALL_CONTENT));
+    fileSystem.add(new FileEntry(ARCHIVE_SRC_DIR + "/b.txt", LARGE_CONTENT));
+    fileSystem.add(new FileEntry(ARCHIVE_SRC_DIR + "/c.csv", "not copied"));
+    fileSystem.add(new FileEntry(TREE_SRC_DIR + "/top.txt", SMALL_CONTENT));
+    fileSystem.add(new FileEntry(TREE_SRC_DIR + "/2020/01/nested.txt", LARGE_CONTENT));
+    FileEntry gzipEntry = new FileEntry(SRC_DIR + "/data.csv.gz");
+    gzipEntry.setContents(gzip(CSV_CONTENT));
+    fileSystem.add(gzipEntry);
+    fileSystem.add(new FileEntry(CRLF_SRC_DIR + "/crlf.txt", CRLF_CONTENT));
+    fileSystem.add(new FileEntry(UNREADABLE_SRC_DIR + "/readable.txt", SMALL_CONTENT));
+    FileEntry unreadableEntry = new FileEntry(UNREADABLE_SRC_DIR + "/unreadable.txt", SMALL_CONTENT);
+    unreadableEntry.setPermissionsFromString("-wx-wx-wx");
+    fileSystem.add(unreadableEntry);
+    ftpServer.setFileSystem(fileSystem);
+    RestartableRetrieve.install(ftpServer);
+    // Digests computed by the server, only for the files with CRLF line endings
+    ftpServer.setCommandHandler("XMD5", new AbstractFakeCommandHandler() {
+      @Override
+      protected void handle(Command command, Session session) {
+        verifyLoggedIn(session);
+        String path = getRealPath(session, command.getRequiredParameter(0));
+        if (!path.startsWith(CRLF_SRC_DIR + "/")) {
+          sendReply(session, 502);
+          return;
+        }
+        try (InputStream is = ((FileEntry) getFileSystem().getEntry(path)).createInputStream()) {
+          byte[] digest = MessageDigest.getInstance("MD5").digest(ByteStreams.toByteArray(is));
+          session.sendReply(250, BaseEncoding.base16().encode(digest));
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+
+    ftpServer.addUserAccount(new UserAccount(USER, PWD, HOME_DIR));
+    ftpServer.start();
+
+    int waitPeriod = 5;
+    while (waitPeriod > 0) {
+      if (ftpServer.isStarted()) {
+        break;
+      }
+      TimeUnit.SECONDS.sleep(1);
+      waitPeriod--;
+    }
+
+    if (!ftpServer.isStarted()) {
+      throw new IOException("FTP Server Failed to start.");
+    }
+    port = ftpServer.getServerControlPort();
+  }
+
+  @AfterClass
+  public static void stop() throws Exception {
+    if (ftpServer != null) {
+      ftpServer.stop();
+    }
+  }
+
+  private static FTPCopyActionConfig.Builder configBuilder(File destFolder) {
+    return FTPCopyActionConfig.builder()
+      .setHost("localhost")
+      .setPort(port)
+      .setUserName(USER)
+      .setPassword(PWD)
+      .setSrcDirectory(SRC_DIR)
+      .setDestDirectory(destFolder.getAbsolutePath())
+      .setFileNameRegex(".*\\.txt")
+      .setExtractZipFiles(true);
+  }
+
+  @Test
+  public void testFTPCopyAction() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder).build());
+    action.run(new MockActionContext());
+
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "small.txt")));
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "large.txt")));
+    Assert.assertFalse(new File(destFolder, "other.csv").exists());
+  }
+
+  @Test
+  public void testDistributedCopy() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setExecutionMode("distributed")
+                                               .setMaxTasks(2)
+                                               .build());
+    action.run(new MockActionContext());
+
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "small.txt")));
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "large.txt")));
+    File[] files = destFolder.listFiles((dir, name) -> !name.startsWith("."));
+    Assert.assertNotNull(files);
+    // The work directory of the job is removed
+    Assert.assertEquals(2, files.length);
+  }
+
+  @Test
+  public void testRecursiveCopy() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyActionConfig config = configBuilder(destFolder)
+      .setSrcDirectory(TREE_SRC_DIR)
+      .setRecursive(true)
+      .setPruneQuietPeriod(0L)
+      .build();
+    new FTPCopyAction(config).run(new MockActionContext());
+
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "top.txt")));
+    File nested = new File(destFolder, "2020/01/nested.txt");
+    Assert.assertEquals(LARGE_CONTENT, read(nested));
+    Assert.assertTrue(new File(destFolder, FTPCopyAction.LISTING_SNAPSHOT).exists());
+
+    // Unchanged directories are not copied again
+    Assert.assertTrue(nested.delete());
+    new FTPCopyAction(config).run(new MockActionContext());
+    Assert.assertFalse(nested.exists());
+
+    // The snapshot is not used once the file name regex changed
+    new FTPCopyAction(FTPCopyActionConfig.builder(config).setFileNameRegex("nested\\.txt").build())
+      .run(new MockActionContext());
+    Assert.assertEquals(LARGE_CONTENT, read(nested));
+  }
+
+  @Test
+  public void testMultipleTransfers() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    File otherDestFolder = TMP_FOLDER.newFolder();
+    List<TransferSpec> transfers = Collections.singletonList(
+      new TransferSpec(ARCHIVE_SRC_DIR, otherDestFolder.getAbsolutePath(), ".*\\.csv", null));
+    FTPCopyActionConfig config = configBuilder(destFolder)
+      .setTransfers(TransferSpec.toJson(transfers))
+      .build();
+    new FTPCopyAction(config).run(new MockActionContext());
+
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "small.txt")));
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "large.txt")));
+    Assert.assertEquals("not copied", read(new File(otherDestFolder, "c.csv")));
+    Assert.assertFalse(new File(otherDestFolder, "a.txt").exists());
+  }
+
+  @Test
+  public void testPackSmallFiles() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setSmallFileThreshold((long) LARGE_CONTENT.length())
+                                               .build());
+    action.run(new MockActionContext());
+
+    Assert.assertFalse(new File(destFolder, "small.txt").exists());
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "large.txt")));
+
+    File[] containers = destFolder.listFiles((dir, name) -> name.endsWith(SmallFilePacker.CONTAINER_EXTENSION));
+    Assert.assertNotNull(containers);
+    Assert.assertEquals(1, containers.length);
+    Map<String, String> records = new HashMap<>();
+    Configuration conf = new Configuration();
+    try (SequenceFile.Reader reader = new SequenceFile.Reader(
+      conf, SequenceFile.Reader.file(new Path(containers[0].toURI())))) {
+      Text key = new Text();
+      BytesWritable value = new BytesWritable();
+      while (reader.next(key, value)) {
+        records.put(key.toString(), new String(value.getBytes(), 0, value.getLength(), StandardCharsets.UTF_8));
+      }
+    }
+    Assert.assertEquals(1, records.size());
+    Assert.assertEquals(SMALL_CONTENT, records.get(SRC_DIR + "/small.txt"));
+  }
+
+  @Test
+  public void testCompression() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setFileNameRegex("small\\.txt|data\\.csv\\.gz")
+                                               .setCompressionCodec("gzip")
+                                               .build());
+    action.run(new MockActionContext());
+
+    Assert.assertEquals(SMALL_CONTENT, decompress(new File(destFolder, "small.txt.gz"), "gzip"));
+    // Already in the destination codec, copied as is
+    Assert.assertEquals(CSV_CONTENT, decompress(new File(destFolder, "data.csv.gz"), "gzip"));
+  }
+
+  @Test
+  public void testRecompression() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setFileNameRegex("data\\.csv\\.gz")
+                                               .setCompressionCodec("bzip2")
+                                               .build());
+    action.run(new MockActionContext());
+
+    Assert.assertFalse(new File(destFolder, "data.csv.gz").exists());
+    Assert.assertEquals(CSV_CONTENT, decompress(new File(destFolder, "data.csv.bz2"), "bzip2"));
+  }
+
+  @Test
+  public void testChunks() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setFileNameRegex("(data\\.csv\\.gz|small\\.txt)")
+                                               .setCompressionCodec("gzip")
+                                               .setChunkSize(4L)
+                                               .build());
+    action.run(new MockActionContext());
+
+    // Every line of the decompressed source lands in a chunk compressed on its own
+    Assert.assertFalse(new File(destFolder, "data.csv.gz").exists());
+    Assert.assertEquals("a,b\n", decompress(new File(destFolder, "data.csv.part-00000.gz"), "gzip"));
+    Assert.assertEquals("1,2\n", decompress(new File(destFolder, "data.csv.part-00001.gz"), "gzip"));
+    Assert.assertFalse(new File(destFolder, "data.csv.part-00002.gz").exists());
+    // A file without line breaks fits into a single chunk
+    Assert.assertEquals(SMALL_CONTENT, decompress(new File(destFolder, "small.txt.gz"), "gzip"));
+  }
+
+  @Test
+  public void testAppendMode() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FileEntry entry = new FileEntry(GROWING_SRC_DIR + "/append.log", "line1\n");
+    ftpServer.getFileSystem().add(entry);
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setSrcDirectory(GROWING_SRC_DIR)
+                                               .setFileNameRegex("append\\.log")
+                                               .setAppendMode("append")
+                                               .build());
+    File destFile = new File(destFolder, "append.log");
+    action.run(new MockActionContext());
+    Assert.assertEquals("line1\n", read(destFile));
+
+    // Only the new bytes are downloaded and appended
+    entry.setContents("line1\nline2\n");
+    action.run(new MockActionContext());
+    Assert.assertEquals("line1\nline2\n", read(destFile));
+    action.run(new MockActionContext());
+    Assert.assertEquals("line1\nline2\n", read(destFile));
+
+    // A source that shrank is copied in full
+    entry.setContents("line\n");
+    action.run(new MockActionContext());
+    Assert.assertEquals("line\n", read(destFile));
+  }
+
+  @Test
+  public void testDeltaMode() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FileEntry entry = new FileEntry(GROWING_SRC_DIR + "/delta.log", "line1\n");
+    ftpServer.getFileSystem().add(entry);
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setSrcDirectory(GROWING_SRC_DIR)
+                                               .setFileNameRegex("delta\\.log")
+                                               .setAppendMode("delta")
+                                               .build());
+    action.run(new MockActionContext());
+    entry.setContents("line1\nline2\n");
+    action.run(new MockActionContext());
+    entry.setContents("line1\nline2\nline3\n");
+    action.run(new MockActionContext());
+    // No delta file is written when the source did not grow
+    action.run(new MockActionContext());
+
+    Assert.assertEquals("line1\n", read(new File(destFolder, "delta.log")));
+    Assert.assertEquals("line2\n", read(new File(destFolder, "delta.log.delta-00001")));
+    Assert.assertEquals("line3\n", read(new File(destFolder, "delta.log.delta-00002")));
+    Assert.assertFalse(new File(destFolder, "delta.log.delta-00003").exists());
+
+    // A source that was rewritten rather than appended to is copied in full, replacing the delta files
+    entry.setContents("LINE1\nLINE2\nLINE3\nLINE4\n");
+    action.run(new MockActionContext());
+    Assert.assertEquals("LINE1\nLINE2\nLINE3\nLINE4\n", read(new File(destFolder, "delta.log")));
+    Assert.assertFalse(new File(destFolder, "delta.log.delta-00001").exists());
+    Assert.assertFalse(new File(destFolder, "delta.log.delta-00002").exists());
+  }
+
+  @Test
+  public void testDestinationPathTemplate() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setFileNameRegex("(small|large)\\.txt")
+                                               .setDestinationPathTemplate("${yyyy}/${MM}/${dd}/size=${1}/${name}")
+                                               .build());
+    action.run(new MockActionContext());
+
+    // Files land in directories partitioned by their modification time and the group captured from their name
+    for (String size : new String[] {"small", "large"}) {
+      Map<String, String> tokens = PathTemplate.dateTokens(
+        ftpServer.getFileSystem().getEntry(SRC_DIR + "/" + size + ".txt").getLastModified().getTime());
+      String path = PathTemplate.expand("${yyyy}/${MM}/${dd}/size=" + size + "/" + size + ".txt", tokens);
+      Assert.assertEquals(size.equals("small") ? SMALL_CONTENT : LARGE_CONTENT, read(new File(destFolder, path)));
+    }
+    Assert.assertFalse(new File(destFolder, "small.txt").exists());
+  }
+
+  @Test
+  public void testLineEndingsKept() throws Exception {
+    // Files written unchanged are moved between channels, chunked files are streamed
+    File channelFolder = TMP_FOLDER.newFolder();
+    new FTPCopyAction(configBuilder(channelFolder).setSrcDirectory(CRLF_SRC_DIR).build())
+      .run(new MockActionContext());
+    File streamFolder = TMP_FOLDER.newFolder();
+    new FTPCopyAction(configBuilder(streamFolder).setSrcDirectory(CRLF_SRC_DIR).setChunkSize(1024L).build())
+      .run(new MockActionContext());
+
+    Assert.assertEquals(CRLF_CONTENT, read(new File(channelFolder, "crlf.txt")));
+    Assert.assertEquals(CRLF_CONTENT, read(new File(streamFolder, "crlf.txt")));
+  }
+
+  @Test
+  public void testDistributedCopyFailure() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyActionConfig.Builder builder = configBuilder(destFolder)
+      .setSrcDirectory(UNREADABLE_SRC_DIR)
+      .setExecutionMode("distributed")
+      .setMaxTasks(2)
+      .setMaxRetries(0);
+    try {
+      new FTPCopyAction(builder.build()).run(new MockActionContext());
+      Assert.fail("Expected the copy to fail");
+    } catch (RuntimeException e) {
+      // The failure holds the reply of the server, which ends with a line break
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains(UNREADABLE_SRC_DIR + "/unreadable.txt"));
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("550"));
+    }
+
+    new FTPCopyAction(builder.setFailureThreshold(1).build()).run(new MockActionContext());
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "readable.txt")));
+    Assert.assertFalse(new File(destFolder, "unreadable.txt").exists());
+  }
+
+  @Test
+  public void testChecksumVerification() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setChecksumVerification("auto")
+                                               .setMaxRetries(0)
+                                               .setFailureThreshold(1)
+                                               .build());
+    action.run(new MockActionContext());
+
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "large.txt")));
+    // Files failing verification are removed from the destination
+    Assert.assertFalse(new File(destFolder, "small.txt").exists());
+
+    String manifest = read(new File(destFolder, FTPCopyAction.CHECKSUM_MANIFEST));
+    Assert.assertTrue(manifest.contains(SRC_DIR + "/large.txt\t" + LARGE_CONTENT.length()));
+    Assert.assertTrue(manifest.contains(md5(LARGE_CONTENT)));
+    Assert.assertFalse(manifest.contains(SRC_DIR + "/small.txt"));
+  }
+
+  @Test
+  public void testServerChecksumWithCrlf() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setSrcDirectory(CRLF_SRC_DIR)
+                                               .setChecksumVerification("server")
+                                               .setMaxRetries(0)
+                                               .build());
+    action.run(new MockActionContext());
+
+    // The digest is computed over the bytes of the source file, so line endings are not converted
+    Assert.assertEquals(CRLF_CONTENT, read(new File(destFolder, "crlf.txt")));
+    String manifest = read(new File(destFolder, FTPCopyAction.CHECKSUM_MANIFEST));
+    Assert.assertTrue(manifest.contains(CRLF_SRC_DIR + "/crlf.txt\t" + CRLF_CONTENT.length()));
+    Assert.assertTrue(manifest.contains(md5(CRLF_CONTENT)));
+  }
+
+  @Test
+  public void testArchiveSources() throws Exception {
+    File destFolder = TMP_FOLDER.newFolder();
+    MockActionContext context = new MockActionContext();
+    FTPCopyAction action = new FTPCopyAction(configBuilder(destFolder)
+                                               .setSrcDirectory(ARCHIVE_SRC_DIR)
+                                               .setPostCopyAction("archive")
+                                               .setArchiveDirectory(HOME_DIR + "/done/${yyyy}-${MM}-${dd}")
+                                               .build());
+    action.run(context);
+
+    Assert.assertEquals(SMALL_CONTENT, read(new File(destFolder, "a.txt")));
+    Assert.assertEquals(LARGE_CONTENT, read(new File(destFolder, "b.txt")));
+
+    Map<String, String> tokens = PathTemplate.dateTokens(context.getLogicalStartTime());
+    String archiveDir = String.format("%s/done/%s-%s-%s", HOME_DIR, tokens.get("yyyy"), tokens.get("MM"),
+                                      tokens.get("dd"));
+    FileSystem fileSystem = ftpServer.getFileSystem();
+    Assert.assertTrue(fileSystem.exists(archiveDir + "/a.txt"));
+    Assert.assertTrue(fileSystem.exists(archiveDir + "/b.txt"));
+    Assert.assertFalse(fileSystem.exists(ARCHIVE_SRC_DIR + "/a.txt"));
+    Assert.assertFalse(fileSystem.exists(ARCHIVE_SRC_DIR + "/b.txt"));
+    // Files that were not copied stay in place
+    Assert.assertTrue(fileSystem.exists(ARCHIVE_SRC_DIR + "/c.csv"));
+  }
+
+  private static String md5(String content) throws Exception {
+    byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+    return BaseEncoding.base16().lowerCase().encode(digest);
+  }
+
+  private static byte[] gzip(String content) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (OutputStream os = new GZIPOutputStream(bos)) {
+      os.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return bos.toByteArray();
+  }
+
+  private static String decompress(File file, String codecName) throws IOException {
+    CompressionCodec codec = new CompressionCodecFactory(new Configuration()).getCodecByName(codecName);
+    try (InputStream is = codec.createInputStream(new FileInputStream(file))) {
+      return new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.security.Credentials;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.FileSystem;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link FTPInputFormat}.
+ */
+public class FTPInputFormatTest {
+  private static final String USER = "john";
+  private static final String PWD = "abcd";
+  private static final String SRC_DIR = "/home/john/in";
+
+  private static FakeFtpServer ftpServer;
+  private static List<String> lines;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    lines = new ArrayList<>();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      String line = "line number " + i;
+      lines.add(line);
+      content.append(line).append('\n');
+    }
+
+    FileSystem fileSystem = new UnixFakeFileSystem();
+    fileSystem.add(new FileEntry(SRC_DIR + "/lines.txt", content.toString()));
+    fileSystem.add(new FileEntry(SRC_DIR + "/empty.txt", ""));
+    fileSystem.add(new FileEntry(SRC_DIR + "/other.csv", "ignored"));
+
+    ftpServer = new FakeFtpServer();
+    ftpServer.setServerControlPort(0);
+    ftpServer.setFileSystem(fileSystem);
+    ftpServer.addUserAccount(new UserAccount(USER, PWD, "/home/john"));
+    RestartableRetrieve.install(ftpServer);
+    ftpServer.start();
+  }
+
+  @AfterClass
+  public static void stop() {
+    if (ftpServer != null) {
+      ftpServer.stop();
+    }
+  }
+
+  private static Configuration configuration() throws Exception {
+    FTPSourceConfig config = FTPSourceConfig.builder()
+      .setReferenceName("ftp")
+      .setHost("localhost")
+      .setPort(ftpServer.getServerControlPort())
+      .setUserName(USER)
+      .setPassword(PWD)
+      .setSrcDirectory(SRC_DIR)
+      .setFileNameRegex(".*\\.txt")
+      .setMaxSplitSize(100L)
+      .build();
+
+    FTPInputFormat.setPassword(PWD);
+    Configuration conf = new Configuration();
+    for (Map.Entry<String, String> entry : FTPInputFormat.getConfiguration(config).entrySet()) {
+      conf.set(entry.getKey(), entry.getValue());
+    }
+    return conf;
+  }
+
+  private static List<String> read(Configuration conf) throws Exception {
+    FTPInputFormat inputFormat = new FTPInputFormat();
+    List<String> read = new ArrayList<>();
+    for (InputSplit split : inputFormat.getSplits(Job.getInstance(conf))) {
+      TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+      try (RecordReader<NullWritable, StructuredRecord> reader = inputFormat.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          read.add(reader.getCurrentValue().get("body"));
+        }
+      }
+    }
+    return read;
+  }
+
+  @Test
+  public void testSplitsReadEveryLineOnce() throws Exception {
+    Configuration conf = configuration();
+    List<InputSplit> splits = new FTPInputFormat().getSplits(Job.getInstance(conf));
+    Assert.assertTrue(splits.size() > 1);
+    for (InputSplit split : splits) {
+      Assert.assertEquals(SRC_DIR + "/lines.txt", ((FTPInputSplit) split).getPath());
+    }
+    Assert.assertEquals(lines, read(conf));
+  }
+
+  @Test
+  public void testPasswordNotInConfiguration() throws Exception {
+    Configuration conf = configuration();
+    for (Map.Entry<String, String> entry : conf) {
+      Assert.assertNotEquals(entry.getKey(), PWD, entry.getValue());
+    }
+    Assert.assertEquals(lines, read(conf));
+  }
+
+  @Test
+  public void testGrownFileReadsNewLines() throws Exception {
+    FileEntry entry = new FileEntry(SRC_DIR + "/growing.txt", "first\nsecond\n");
+    ftpServer.getFileSystem().add(entry);
+    try {
+      Configuration conf = configuration();
+      conf.set(FTPInputFormat.FILE_NAME_REGEX, "growing\\.txt");
+      CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+      FileTracker tracker = new FileTracker();
+      Credentials credentials = new Credentials();
+
+      FTPInputFormat.setSplits(conf, tracker.update(SRC_DIR, FTPInputFormat.listFiles(conf, credentials), 100, codecs));
+      Assert.assertEquals(Arrays.asList("first", "second"), read(conf));
+
+      entry.setContents("first\nsecond\nthird\nfourth\n");
+      FTPInputFormat.setSplits(conf, tracker.update(SRC_DIR, FTPInputFormat.listFiles(conf, credentials), 100, codecs));
+      Assert.assertEquals(Arrays.asList("third", "fourth"), read(conf));
+    } finally {
+      ftpServer.getFileSystem().delete(entry.getPath());
+    }
+  }
+}
@@ -75,4 +75,15 @@ public class FTPPutActionConfigTest {
     config.validate(failureCollector);
     ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPPutActionConfig.PORT);
   }
+
+  @Test
+  public void testInvalidTransferEngine() {
+    FTPPutActionConfig config = FTPPutActionConfig.builder(VALID_CONFIG)
+      .setTransferEngine("nio")
+      .build();
+
+    MockFailureCollector failureCollector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(failureCollector);
+    ValidationAssertions.assertPropertyValidationFailed(failureCollector, FTPPutActionConfig.TRANSFER_ENGINE);
+  }
 }
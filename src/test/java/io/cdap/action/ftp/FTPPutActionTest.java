@@ -16,6 +16,8 @@
 
 package io.cdap.action.ftp;
 
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import io.cdap.cdap.etl.mock.action.MockActionContext;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -23,8 +25,12 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockftpserver.core.command.Command;
+import org.mockftpserver.core.command.CommandNames;
+import org.mockftpserver.core.session.Session;
 import org.mockftpserver.fake.FakeFtpServer;
 import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.command.StorCommandHandler;
 import org.mockftpserver.fake.filesystem.FileEntry;
 import org.mockftpserver.fake.filesystem.FileSystem;
 import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
@@ -32,9 +38,14 @@ import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests for {@link FTPPutAction}.
@@ -60,6 +71,7 @@ public class FTPPutActionTest {
   public static int port;
 
   private static FakeFtpServer ftpServer;
+  private static AtomicInteger flakyStores;
 
   @BeforeClass
   public static void init() throws Exception {
@@ -92,6 +104,18 @@ public class FTPPutActionTest {
     FileSystem fileSystem = new UnixFakeFileSystem();
     fileSystem.add(new FileEntry(destFile.getAbsolutePath(), "Some Text"));
     ftpServer.setFileSystem(fileSystem);
+    // Fails the first upload of files named flaky*, as a server running out of resources would
+    flakyStores = new AtomicInteger();
+    ftpServer.setCommandHandler(CommandNames.STOR, new StorCommandHandler() {
+      @Override
+      protected void handle(Command command, Session session) {
+        if (command.getRequiredParameter(0).contains("/flaky") && flakyStores.getAndIncrement() == 0) {
+          session.sendReply(452, "Insufficient storage space.");
+          return;
+        }
+        super.handle(command, session);
+      }
+    });
 
     ftpServer.addUserAccount(new UserAccount(USER, PWD, destFolder.getAbsolutePath()));
     ftpServer.start();
@@ -131,4 +155,100 @@ public class FTPPutActionTest {
     names = fs.listNames(dataFolder.getPath());
     Assert.assertEquals(1, names.size());
   }
+
+  @Test
+  public void testTransientFailureIsRetried() throws Exception {
+    File source = TMP_FOLDER.newFolder();
+    Files.write(new File(source, "flaky.txt").toPath(), "retried".getBytes(StandardCharsets.UTF_8));
+    FTPPutActionConfig config = FTPPutActionConfig.builder()
+      .setHost("localhost")
+      .setPort(port)
+      .setUserName(USER)
+      .setPassword(PWD)
+      .setSrcPath(source.getAbsolutePath())
+      .setDestDirectory("retried")
+      .setFileNameRegex(".*\\.txt")
+      .setMaxRetries(1)
+      .build();
+    new FTPPutAction(config).run(new MockActionContext());
+
+    Assert.assertEquals(2, flakyStores.get());
+    Assert.assertEquals("retried", new String(readRemote("retried/flaky.txt"), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testChecksumMismatchFailsFile() throws Exception {
+    File source = TMP_FOLDER.newFolder();
+    writeLocal(new File(source, "good.txt"), "good");
+    writeLocal(new File(source, "good.txt.md5"), md5("good") + "  good.txt\n");
+    writeLocal(new File(source, "bad.txt"), "bad");
+    writeLocal(new File(source, "bad.txt.md5"), md5("corrupted") + "  bad.txt\n");
+    FTPPutActionConfig config = FTPPutActionConfig.builder()
+      .setHost("localhost")
+      .setPort(port)
+      .setUserName(USER)
+      .setPassword(PWD)
+      .setSrcPath(source.getAbsolutePath())
+      .setDestDirectory("verified")
+      .setFileNameRegex(".*\\.txt")
+      .setChecksumVerification("sidecar")
+      .setMaxRetries(0)
+      .setFailureThreshold(1)
+      .build();
+    new FTPPutAction(config).run(new MockActionContext());
+
+    Assert.assertEquals("good", new String(readRemote("verified/good.txt"), StandardCharsets.UTF_8));
+    // Files failing verification are removed from the server
+    Assert.assertNull(ftpServer.getFileSystem().getEntry(destFolder.getAbsolutePath() + "/verified/bad.txt"));
+
+    // Without a failure threshold, the mismatch fails the action
+    try {
+      new FTPPutAction(FTPPutActionConfig.builder(config).setFailureThreshold(0).build())
+        .run(new MockActionContext());
+      Assert.fail("Expected the checksum mismatch to fail the action");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("bad.txt"));
+    }
+  }
+
+  @Test
+  public void testZeroCopyUpload() throws Exception {
+    // Every byte value, including CR and LF, spread over several transfer buffers
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i * 31);
+    }
+    File source = TMP_FOLDER.newFolder();
+    Files.write(new File(source, "binary.dat").toPath(), content);
+    // Without checksum verification, files on the local file system are uploaded straight from their file channel
+    FTPPutActionConfig config = FTPPutActionConfig.builder()
+      .setHost("localhost")
+      .setPort(port)
+      .setUserName(USER)
+      .setPassword(PWD)
+      .setSrcPath(source.getAbsolutePath())
+      .setDestDirectory("zerocopy")
+      .setFileNameRegex(".*\\.dat")
+      .build();
+    new FTPPutAction(config).run(new MockActionContext());
+
+    Assert.assertArrayEquals(content, readRemote("zerocopy/binary.dat"));
+  }
+
+  private static void writeLocal(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String md5(String content) throws Exception {
+    byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+    return BaseEncoding.base16().lowerCase().encode(digest);
+  }
+
+  private static byte[] readRemote(String path) throws IOException {
+    FileEntry entry = (FileEntry) ftpServer.getFileSystem().getEntry(destFolder.getAbsolutePath() + "/" + path);
+    Assert.assertNotNull(path, entry);
+    try (InputStream is = entry.createInputStream()) {
+      return ByteStreams.toByteArray(is);
+    }
+  }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link FileTracker}.
+ */
+public class FileTrackerTest {
+  private static final CompressionCodecFactory CODECS = new CompressionCodecFactory(new Configuration());
+
+  private static FTPFile file(String name, long size, long modified) {
+    FTPFile file = new FTPFile();
+    file.setName(name);
+    file.setSize(size);
+    Calendar timestamp = Calendar.getInstance();
+    timestamp.setTimeInMillis(modified);
+    file.setTimestamp(timestamp);
+    return file;
+  }
+
+  @Test
+  public void testNewAndGrownFiles() {
+    FileTracker tracker = new FileTracker();
+    List<FTPInputSplit> splits = tracker.update("/in", Arrays.asList(file("a.txt", 10, 1), file("b.gz", 10, 1),
+                                                                      file("empty.txt", 0, 1)), 100, CODECS);
+    Assert.assertEquals("[/in/a.txt:0+10, /in/b.gz:0+10]", splits.toString());
+
+    // Nothing changed
+    splits = tracker.update("/in", Arrays.asList(file("a.txt", 10, 1), file("b.gz", 10, 1)), 100, CODECS);
+    Assert.assertTrue(splits.isEmpty());
+
+    // Grown files are read from their last byte read before, compressed files are read again
+    splits = tracker.update("/in", Arrays.asList(file("a.txt", 25, 2), file("b.gz", 20, 2)), 100, CODECS);
+    Assert.assertEquals("[/in/a.txt:9+16, /in/b.gz:0+20]", splits.toString());
+
+    // Rewritten files are read again
+    splits = tracker.update("/in", Arrays.asList(file("a.txt", 5, 3), file("b.gz", 20, 2)), 100, CODECS);
+    Assert.assertEquals("[/in/a.txt:0+5]", splits.toString());
+  }
+
+  @Test
+  public void testRemovedFilesAreForgotten() {
+    FileTracker tracker = new FileTracker();
+    tracker.update("/in", Arrays.asList(file("a.txt", 10, 1), file("b.txt", 10, 1)), 100, CODECS);
+    tracker.update("/in", Collections.singletonList(file("b.txt", 10, 1)), 100, CODECS);
+    Assert.assertEquals(1, tracker.size());
+
+    List<FTPInputSplit> splits = tracker.update("/in", Collections.singletonList(file("a.txt", 10, 1)), 100, CODECS);
+    Assert.assertEquals("[/in/a.txt:0+10]", splits.toString());
+  }
+}
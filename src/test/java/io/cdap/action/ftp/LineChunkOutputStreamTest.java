@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link LineChunkOutputStream}.
+ */
+public class LineChunkOutputStreamTest {
+
+  @Test
+  public void testLineAlignedChunks() throws Exception {
+    List<ByteArrayOutputStream> chunks = new ArrayList<>();
+    String content = "first line\nsecond\nx\nthe last line without break";
+    try (LineChunkOutputStream os = new LineChunkOutputStream(8, index -> {
+      ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+      chunks.add(chunk);
+      return chunk;
+    })) {
+      byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+      // Written in pieces that do not line up with lines or chunks
+      for (int off = 0; off < bytes.length; off += 5) {
+        os.write(bytes, off, Math.min(5, bytes.length - off));
+      }
+      Assert.assertEquals(3, os.getChunks());
+    }
+
+    Assert.assertEquals(3, chunks.size());
+    Assert.assertEquals("first line\n", chunks.get(0).toString("UTF-8"));
+    Assert.assertEquals("second\nx\n", chunks.get(1).toString("UTF-8"));
+    Assert.assertEquals("the last line without break", chunks.get(2).toString("UTF-8"));
+  }
+
+  @Test
+  public void testNoEmptyChunk() throws Exception {
+    List<ByteArrayOutputStream> chunks = new ArrayList<>();
+    try (LineChunkOutputStream os = new LineChunkOutputStream(4, index -> {
+      ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+      chunks.add(chunk);
+      return chunk;
+    })) {
+      os.write("abc\n".getBytes(StandardCharsets.UTF_8));
+    }
+    Assert.assertEquals(1, chunks.size());
+  }
+}
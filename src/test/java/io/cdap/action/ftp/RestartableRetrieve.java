@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import com.google.common.io.ByteStreams;
+import org.mockftpserver.core.command.Command;
+import org.mockftpserver.core.command.CommandNames;
+import org.mockftpserver.core.session.Session;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.command.AbstractFakeCommandHandler;
+import org.mockftpserver.fake.filesystem.FileEntry;
+import org.mockftpserver.fake.filesystem.FileSystemEntry;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@code REST} and {@code RETR} handlers for the {@link FakeFtpServer} that honor the restart offset, which the
+ * default handlers acknowledge but ignore.
+ */
+final class RestartableRetrieve {
+  private static final String OFFSET = "restartOffset";
+
+  private RestartableRetrieve() {
+  }
+
+  static void install(FakeFtpServer server) {
+    server.setCommandHandler(CommandNames.REST, new AbstractFakeCommandHandler() {
+      @Override
+      protected void handle(Command command, Session session) {
+        verifyLoggedIn(session);
+        session.setAttribute(OFFSET, Long.parseLong(command.getRequiredParameter(0)));
+        sendReply(session, 350, "rest");
+      }
+    });
+    server.setCommandHandler(CommandNames.RETR, new AbstractFakeCommandHandler() {
+      @Override
+      protected void handle(Command command, Session session) {
+        verifyLoggedIn(session);
+        replyCodeForFileSystemException = 550;
+        String path = getRealPath(session, command.getRequiredParameter(0));
+        FileSystemEntry entry = getFileSystem().getEntry(path);
+        verifyFileSystemCondition(entry != null && !entry.isDirectory(), path, "filesystem.isNotAFile");
+        verifyReadPermission(session, path);
+        Long offset = (Long) session.getAttribute(OFFSET);
+        session.removeAttribute(OFFSET);
+
+        byte[] bytes;
+        try (InputStream is = ((FileEntry) entry).createInputStream()) {
+          ByteStreams.skipFully(is, offset == null ? 0 : offset);
+          bytes = ByteStreams.toByteArray(is);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        sendReply(session, 150);
+        session.openDataConnection();
+        session.sendData(bytes, bytes.length);
+        session.closeDataConnection();
+        sendReply(session, 226);
+      }
+    });
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for {@link SmallFilePacker}.
+ */
+public class SmallFilePackerTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testRollingContainers() throws Exception {
+    Configuration conf = new Configuration();
+    Path destination = new Path(TMP_FOLDER.newFolder().toURI());
+    FileSystem fs = destination.getFileSystem(conf);
+
+    try (SmallFilePacker packer = new SmallFilePacker(conf, destination, 1, null, 1000L)) {
+      packer.append("in/a.txt", "first".getBytes(StandardCharsets.UTF_8));
+      packer.append("in/b.txt", "second".getBytes(StandardCharsets.UTF_8));
+    }
+
+    FileStatus[] containers = fs.listStatus(destination, path -> path.getName().endsWith(".seq"));
+    Assert.assertEquals(2, containers.length);
+
+    Map<String, String> records = new HashMap<>();
+    for (FileStatus container : containers) {
+      try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(container.getPath()))) {
+        Text key = new Text();
+        BytesWritable value = new BytesWritable();
+        while (reader.next(key, value)) {
+          records.put(key.toString(),
+                      new String(Arrays.copyOf(value.getBytes(), value.getLength()), StandardCharsets.UTF_8));
+        }
+      }
+    }
+    Assert.assertEquals("first", records.get("in/a.txt"));
+    Assert.assertEquals("second", records.get("in/b.txt"));
+  }
+
+  @Test
+  public void testGzipWithoutNativeLibraries() throws Exception {
+    Configuration conf = new Configuration();
+    Path destination = new Path(TMP_FOLDER.newFolder().toURI());
+    GzipCodec gzip = ReflectionUtils.newInstance(GzipCodec.class, conf);
+
+    try (SmallFilePacker packer = new SmallFilePacker(conf, destination, 1024, gzip, 1000L)) {
+      packer.append("in/a.txt", "first".getBytes(StandardCharsets.UTF_8));
+    }
+
+    Path container = new Path(destination, "packed-1000-00000.seq");
+    try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(container))) {
+      Text key = new Text();
+      Assert.assertTrue(reader.next(key, new BytesWritable()));
+      Assert.assertEquals("in/a.txt", key.toString());
+    }
+  }
+
+  @Test
+  public void testRerunReplacesContainers() throws Exception {
+    Configuration conf = new Configuration();
+    Path destination = new Path(TMP_FOLDER.newFolder().toURI());
+    FileSystem fs = destination.getFileSystem(conf);
+
+    try (SmallFilePacker packer = new SmallFilePacker(conf, destination, 1, null, 1000L)) {
+      packer.append("in/a.txt", "first".getBytes(StandardCharsets.UTF_8));
+      packer.append("in/b.txt", "second".getBytes(StandardCharsets.UTF_8));
+    }
+    // A rerun of the same run packing fewer files leaves no container of the earlier attempt behind
+    try (SmallFilePacker packer = new SmallFilePacker(conf, destination, 1024, null, 1000L)) {
+      packer.append("in/a.txt", "first".getBytes(StandardCharsets.UTF_8));
+    }
+    // Containers of other runs are kept
+    try (SmallFilePacker packer = new SmallFilePacker(conf, destination, 1024, null, 2000L)) {
+      packer.append("in/c.txt", "third".getBytes(StandardCharsets.UTF_8));
+    }
+
+    FileStatus[] containers = fs.listStatus(destination, path -> path.getName().endsWith(".seq"));
+    Arrays.sort(containers);
+    Assert.assertEquals(2, containers.length);
+    Assert.assertEquals("packed-1000-00000.seq", containers[0].getPath().getName());
+    Assert.assertEquals("packed-2000-00000.seq", containers[1].getPath().getName());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.action.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tests for {@link TransferRunner}.
+ */
+public class TransferRunnerTest {
+  private static final List<String> LOCALHOST = Collections.singletonList("localhost");
+
+  @Test
+  public void testRetryReconnects() throws Exception {
+    AtomicInteger connections = new AtomicInteger();
+    Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    TransferRunner<String> runner = new TransferRunner<>(LOCALHOST, 1, 3, 0, 1L, host -> {
+      connections.incrementAndGet();
+      return new FTPClient();
+    });
+
+    TransferReport report = runner.run(Arrays.asList("a", "b", "c"), Function.identity(), (session, item) -> {
+      if (item.equals("b") && attempts.computeIfAbsent(item, k -> new AtomicInteger()).incrementAndGet() < 3) {
+        throw new IOException("Connection lost");
+      }
+    });
+
+    Assert.assertEquals(3, report.getSucceeded());
+    Assert.assertEquals(Collections.singletonMap("b", 2), report.getRetried());
+    Assert.assertTrue(report.getFailed().isEmpty());
+    // one connection for the first attempt and one for every retry
+    Assert.assertEquals(3, connections.get());
+  }
+
+  @Test
+  public void testFailuresBelowThreshold() throws Exception {
+    TransferRunner<String> runner = new TransferRunner<>(LOCALHOST, 1, 1, 1, 1L, host -> new FTPClient());
+
+    TransferReport report = runner.run(Arrays.asList("a", "b", "c"), Function.identity(), (session, item) -> {
+      if (item.equals("b")) {
+        throw new IOException("Permission denied");
+      }
+    });
+
+    Assert.assertEquals(2, report.getSucceeded());
+    Assert.assertEquals(Collections.singletonMap("b", 1), report.getRetried());
+    Assert.assertEquals(Collections.singletonMap("b", "Permission denied"), report.getFailed());
+  }
+
+  @Test
+  public void testFailuresAboveThreshold() throws Exception {
+    TransferRunner<String> runner = new TransferRunner<>(LOCALHOST, 1, 0, 0, 1L, host -> new FTPClient());
+
+    try {
+      runner.run(Arrays.asList("a", "b", "c"), Function.identity(), (session, item) -> {
+        if (item.equals("b")) {
+          throw new IOException("Permission denied");
+        }
+      });
+      Assert.fail("Expected the failure threshold to be exceeded");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getMessage().contains("[b]"));
+    }
+  }
+
+  @Test
+  public void testVirtualEngine() throws Exception {
+    // Falls back to platform threads on Java versions without virtual threads
+    TransferRunner<String> runner = new TransferRunner<>(LOCALHOST, 4, 0, 0, TransferEngine.VIRTUAL,
+                                                         host -> new FTPClient());
+    Map<String, String> threads = new ConcurrentHashMap<>();
+    TransferReport report = runner.run(Arrays.asList("a", "b", "c", "d"), Function.identity(), (session, item) -> {
+      threads.put(item, Thread.currentThread().getName());
+    });
+
+    Assert.assertEquals(4, report.getSucceeded());
+    for (String thread : threads.values()) {
+      Assert.assertTrue(thread, thread.startsWith("ftp-transfer-localhost-"));
+    }
+  }
+
+  @Test
+  public void testMirrorFailover() throws Exception {
+    TransferRunner<String> runner = new TransferRunner<>(Arrays.asList("mirror1", "mirror2", "down"), 2, 1, 0, 1L,
+                                                         host -> {
+      if (host.equals("down")) {
+        throw new ConnectException("Connection refused");
+      }
+      return new FTPClient();
+    });
+
+    Map<String, String> transferredFrom = new ConcurrentHashMap<>();
+    List<String> items = Arrays.asList("a", "b", "c", "d", "e", "f");
+    TransferReport report = runner.run(items, Function.identity(), (session, item) -> {
+      // b is broken on the first mirror only
+      if (item.equals("b") && session.getHost().equals("mirror1")) {
+        throw new IOException("Transfer aborted");
+      }
+      // Keeps the files in flight long enough for every mirror to be tried
+      try {
+        TimeUnit.MILLISECONDS.sleep(20);
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+      transferredFrom.put(item, session.getHost());
+    });
+
+    Assert.assertEquals(6, report.getSucceeded());
+    Assert.assertTrue(report.getFailed().isEmpty());
+    Assert.assertEquals("mirror2", transferredFrom.get("b"));
+    Map<String, TransferReport.HostStatistics> hosts = report.getHosts();
+    Assert.assertEquals(6, hosts.get("mirror1").getFiles() + hosts.get("mirror2").getFiles());
+    Assert.assertEquals(0, hosts.get("down").getFiles());
+    Assert.assertTrue(hosts.get("down").getFailedAttempts() > 0);
+  }
+}